@@ -6,6 +6,39 @@ public class AppConstants {
     public static final int HIGH_FLOW_RULE_PRIORITY = 3000;
     public static final int MEDIUM_FLOW_RULE_PRIORITY = 7000;
     public static final int DEFAULT_FLOW_RULE_PRIORITY = 10000;
+    public static final int MAX_SLICE_ID = 0xFFFF;
+    public static final int SLICE_METER_CAPACITY = 4096; // size of slice_meter on the switches
     public static final int CLEAN_UP_DELAY = 2000; // milliseconds
     public static final int DEFAULT_CLEAN_UP_RETRY_TIMES = 10;
+
+    public static final int REPORT_WINDOW = 10000; // milliseconds
+    public static final int REPORT_BLOOM_BITS = 1 << 20;
+    public static final int REPORT_BLOOM_HASHES = 4;
+    public static final int REPORT_SKETCH_DEPTH = 4;
+    public static final int REPORT_SKETCH_WIDTH = 4096;
+    public static final int REPORT_TOP_K = 32;
+    public static final long REPORT_CORRELATION_WINDOW = 200; // milliseconds
+
+    public static final long MITIGATION_THRESHOLD = 1000; // reports per key per window
+    public static final long MITIGATION_TTL = 60000; // milliseconds
+    public static final double MITIGATION_RATE = 10.0; // installs per second
+    public static final int MITIGATION_BURST = 20;
+    public static final long MITIGATION_TICK = 100; // milliseconds
+    public static final int MITIGATION_WHEEL_SIZE = 512;
+    public static final long MITIGATION_QOS_PIR_DIVISOR = 4;
+
+    public static final String JOURNAL_DIRECTORY = "tpc-journal"; // relative to karaf.data
+    public static final int JOURNAL_SEGMENT_RECORDS = 1 << 20; // 64 MiB segments
+    public static final int JOURNAL_MAX_SEGMENTS = 16;
+    public static final int JOURNAL_QUEUE_CAPACITY = 1 << 16;
+
+    public static final int PROGRAMMING_THREADS = 4;
+    public static final int PROGRAMMING_BATCH_SIZE = 256; // rules per device batch
+    public static final int PROGRAMMING_MAX_IN_FLIGHT = 4; // batches per device
+    public static final long PROGRAMMING_TIMEOUT = 10000; // milliseconds
+    public static final long PROFILE_TIMEOUT = 60000; // milliseconds, for the new entries of a profile
+
+    public static final int EVENT_MAX_SUBSCRIBERS = 16;
+    public static final int EVENT_BUFFER_SIZE = 1024;
+    public static final int EVENT_KEEPALIVE = 15000; // milliseconds
 }
@@ -15,14 +15,24 @@
  */
 package org.onosproject.tpc;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.primitives.Longs;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.Ip4Address;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.*;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleOperations;
+import org.onosproject.net.flow.FlowRuleOperationsContext;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.criteria.PiCriterion;
 import org.onosproject.net.link.LinkService;
@@ -33,11 +43,41 @@ import org.onosproject.net.packet.PacketService;
 import org.onosproject.net.pi.model.PiActionId;
 import org.onosproject.net.pi.model.PiActionParamId;
 import org.onosproject.net.pi.model.PiMatchFieldId;
+import org.onosproject.net.pi.model.PiMeterId;
 import org.onosproject.net.pi.runtime.PiAction;
 import org.onosproject.net.pi.runtime.PiActionParam;
+import org.onosproject.net.pi.runtime.PiMeterCellId;
+import org.onosproject.net.pi.service.PiPipeconfService;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
 import org.onosproject.tpc.common.CheckerSliceIdEntry;
 import org.onosproject.tpc.common.ExfiltrationAttackEntry;
+import org.onosproject.tpc.common.MeterIndexAllocator;
 import org.onosproject.tpc.common.SliceQoSEntry;
+import org.onosproject.tpc.device.TPCDeviceRegistry;
+import org.onosproject.tpc.event.EventBroker;
+import org.onosproject.tpc.event.TPCEvent;
+import org.onosproject.tpc.journal.ReportJournal;
+import org.onosproject.tpc.journal.ReportJournalReplayer;
+import org.onosproject.tpc.load.LoadConfig;
+import org.onosproject.tpc.load.LoadRun;
+import org.onosproject.tpc.load.ReportLoadGenerator;
+import org.onosproject.tpc.mitigation.HashedTimerWheel;
+import org.onosproject.tpc.mitigation.Mitigation;
+import org.onosproject.tpc.mitigation.MitigationEngine;
+import org.onosproject.tpc.profile.ConfigProfile;
+import org.onosproject.tpc.profile.ProfileDelta;
+import org.onosproject.tpc.program.CheckingState;
+import org.onosproject.tpc.program.ProgrammingScheduler;
+import org.onosproject.tpc.report.ReportCorrelator;
+import org.onosproject.tpc.report.ReportPipeline;
+import org.onosproject.tpc.report.ReportPipelineStats;
+import org.onosproject.tpc.report.ReportSuppressor;
+import org.onosproject.tpc.store.AttackEntryStore;
+import org.onosproject.tpc.store.DeviceIndex;
+import org.onosproject.tpc.store.SliceAssignmentStore;
+import org.onosproject.tpc.verify.Finding;
+import org.onosproject.tpc.verify.IsolationVerifier;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -46,10 +86,52 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+import static org.onlab.util.Tools.groupedThreads;
+import static org.onosproject.tpc.AppConstants.DEFAULT_FLOW_RULE_PRIORITY;
+import static org.onosproject.tpc.AppConstants.EVENT_MAX_SUBSCRIBERS;
 import static org.onosproject.tpc.AppConstants.HIGH_FLOW_RULE_PRIORITY;
+import static org.onosproject.tpc.AppConstants.JOURNAL_DIRECTORY;
+import static org.onosproject.tpc.AppConstants.JOURNAL_MAX_SEGMENTS;
+import static org.onosproject.tpc.AppConstants.JOURNAL_QUEUE_CAPACITY;
+import static org.onosproject.tpc.AppConstants.JOURNAL_SEGMENT_RECORDS;
 import static org.onosproject.tpc.AppConstants.MEDIUM_FLOW_RULE_PRIORITY;
+import static org.onosproject.tpc.AppConstants.MITIGATION_BURST;
+import static org.onosproject.tpc.AppConstants.MITIGATION_QOS_PIR_DIVISOR;
+import static org.onosproject.tpc.AppConstants.MITIGATION_RATE;
+import static org.onosproject.tpc.AppConstants.MITIGATION_THRESHOLD;
+import static org.onosproject.tpc.AppConstants.MITIGATION_TICK;
+import static org.onosproject.tpc.AppConstants.MITIGATION_TTL;
+import static org.onosproject.tpc.AppConstants.MITIGATION_WHEEL_SIZE;
+import static org.onosproject.tpc.AppConstants.PROGRAMMING_BATCH_SIZE;
+import static org.onosproject.tpc.AppConstants.PROGRAMMING_MAX_IN_FLIGHT;
+import static org.onosproject.tpc.AppConstants.PROGRAMMING_THREADS;
+import static org.onosproject.tpc.AppConstants.PROFILE_TIMEOUT;
+import static org.onosproject.tpc.AppConstants.PROGRAMMING_TIMEOUT;
+import static org.onosproject.tpc.AppConstants.REPORT_BLOOM_BITS;
+import static org.onosproject.tpc.AppConstants.REPORT_BLOOM_HASHES;
+import static org.onosproject.tpc.AppConstants.REPORT_CORRELATION_WINDOW;
+import static org.onosproject.tpc.AppConstants.REPORT_SKETCH_DEPTH;
+import static org.onosproject.tpc.AppConstants.REPORT_SKETCH_WIDTH;
+import static org.onosproject.tpc.AppConstants.REPORT_TOP_K;
+import static org.onosproject.tpc.AppConstants.REPORT_WINDOW;
+import static org.onosproject.tpc.AppConstants.SLICE_METER_CAPACITY;
 import static org.onosproject.tpc.common.Utils.buildFlowRule;
 
 /**
@@ -86,15 +168,96 @@ public class TPCComponent implements TPCService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY)
     protected PacketService packetService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    private PiPipeconfService pipeconfService;
+
     private static short CHECKER_REPORT_ETH_TYPE = (short) 0x5678;
     private static short CHECKER_REPORT_ETH_MASK = (short) 0xFFFF;
 
-    private final InternalPacketProcessor packetProcessor = new InternalPacketProcessor();
+    private InternalPacketProcessor packetProcessor;
+
+    private final CheckingState checkingState = new CheckingState();
+
+    private final ReportPipelineStats pipelineStats = new ReportPipelineStats();
+    private final ReportSuppressor reportSuppressor = new ReportSuppressor(
+            REPORT_BLOOM_BITS, REPORT_BLOOM_HASHES, REPORT_SKETCH_DEPTH, REPORT_SKETCH_WIDTH, REPORT_TOP_K);
+    private ScheduledExecutorService reportExecutor;
+
+    private final Map<Integer, Long> sliceQoS = Maps.newConcurrentMap();
+    private final DeviceIndex deviceIndex = new DeviceIndex();
+    private final SliceAssignmentStore sliceAssignments = new SliceAssignmentStore(deviceIndex, 1024);
+    private final AttackEntryStore attackEntryStore = new AttackEntryStore(deviceIndex, 1024);
+    private final MeterIndexAllocator meterIndexAllocator = new MeterIndexAllocator(SLICE_METER_CAPACITY);
+    private HashedTimerWheel timerWheel;
+    private ReportCorrelator reportCorrelator;
+    private MitigationEngine mitigationEngine;
+    private InternalMitigationActuator mitigationActuator;
+
+    private ReportJournal reportJournal;
+    private ReportPipeline reportPipeline;
+    private final LongAdder unmappedReports = new LongAdder();
+    private ExecutorService replayExecutor;
+    private ExecutorService loadExecutor;
+    private final AtomicReference<LoadRun> loadRun = new AtomicReference<>();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ScheduledExecutorService programmingExecutor;
+    private ProgrammingScheduler programmingScheduler;
+    private final EventBroker eventBroker = new EventBroker(EVENT_MAX_SUBSCRIBERS);
+
+    private TPCDeviceRegistry deviceRegistry;
+    private IsolationVerifier isolationVerifier;
+
+    private final Map<String, ConfigProfile> profiles = Maps.newConcurrentMap();
+    private volatile String activeProfile;
+
+    // Serializes every change of the programmed configuration
+    private final Object configLock = new Object();
+    // Slice index releases waiting for configLock, queued once the rules or meters using them are gone
+    private final Queue<Runnable> pendingReleases = new ConcurrentLinkedQueue<>();
 
     @Activate
     protected void activate() {
         appId = mainComponent.getAppId();
 
+        isolationVerifier = new IsolationVerifier(linkService, sliceAssignments);
+        isolationVerifier.activate();
+
+        programmingExecutor = Executors.newScheduledThreadPool(PROGRAMMING_THREADS,
+                groupedThreads("onos/tpc", "programming-%d", log));
+        programmingScheduler = new ProgrammingScheduler(programmingExecutor, PROGRAMMING_MAX_IN_FLIGHT,
+                PROGRAMMING_TIMEOUT);
+        programmingScheduler.setFailureListener(this::publishCriticalFailure);
+
+        deviceRegistry = new TPCDeviceRegistry(deviceService, pipeconfService);
+        deviceRegistry.setRemovalListener(this::forgetDevice);
+        deviceRegistry.activate();
+
+        reportExecutor = Executors.newSingleThreadScheduledExecutor(groupedThreads("onos/tpc", "report-summary", log));
+        reportExecutor.scheduleAtFixedRate(this::emitReportSummary, REPORT_WINDOW, REPORT_WINDOW, TimeUnit.MILLISECONDS);
+
+        timerWheel = new HashedTimerWheel(MITIGATION_TICK, MITIGATION_WHEEL_SIZE, reportExecutor);
+        timerWheel.start();
+        reportCorrelator = new ReportCorrelator(linkService, timerWheel, REPORT_CORRELATION_WINDOW,
+                incident -> emitIncident(incident, false));
+        mitigationActuator = new InternalMitigationActuator();
+        mitigationEngine = new MitigationEngine(MITIGATION_THRESHOLD, MITIGATION_TTL, MITIGATION_RATE, MITIGATION_BURST,
+                timerWheel, mitigationActuator);
+
+        reportJournal = new ReportJournal(Paths.get(System.getProperty("karaf.data", "."), JOURNAL_DIRECTORY),
+                JOURNAL_SEGMENT_RECORDS, JOURNAL_MAX_SEGMENTS, JOURNAL_QUEUE_CAPACITY);
+        try {
+            reportJournal.start();
+        } catch (IOException e) {
+            log.error("Unable to start report journal, reports will not be journaled", e);
+        }
+        reportPipeline = new ReportPipeline(reportJournal, reportSuppressor, mitigationEngine, reportCorrelator,
+                report -> publishViolation(report, false), pipelineStats);
+        replayExecutor = Executors.newSingleThreadExecutor(groupedThreads("onos/tpc", "journal-replay", log));
+        loadExecutor = Executors.newSingleThreadExecutor(groupedThreads("onos/tpc", "load-test", log));
+
+        packetProcessor = new InternalPacketProcessor(reportPipeline, meterIndexAllocator::sliceOf);
         packetService.addProcessor(packetProcessor, PacketProcessor.advisor(0));
 
         log.info("Started");
@@ -103,11 +266,25 @@ public class TPCComponent implements TPCService {
     @Deactivate
     protected void deactivate() {
         packetService.removeProcessor(packetProcessor);
+        replayExecutor.shutdownNow();
+        loadExecutor.shutdownNow();
+        reportJournal.stop();
+        mitigationEngine.clear();
+        mitigationActuator.clear();
+        reportCorrelator.clear();
+        timerWheel.stop();
+        reportExecutor.shutdownNow();
+        if (!programmingScheduler.drain(PROGRAMMING_TIMEOUT)) {
+            log.warn("Programming operations still in flight while stopping");
+        }
+        programmingExecutor.shutdownNow();
 
         flowRuleService.removeFlowRulesById(appId);
-        for (Device device: deviceService.getAvailableDevices()) {
-            meterService.purgeMeters(device.id(), appId);
+        for (DeviceId deviceId: deviceRegistry.devices()) {
+            meterService.purgeMeters(deviceId, appId);
         }
+        deviceRegistry.deactivate();
+        isolationVerifier.deactivate();
 
         log.info("Stopped");
     }
@@ -115,90 +292,174 @@ public class TPCComponent implements TPCService {
     @Override
     public void postExfiltrationAttackEntries(List<ExfiltrationAttackEntry> attackEntries) {
         log.info("Received attack entries: {}", attackEntries);
-        handleAttackEntries(attackEntries);
+        synchronized (configLock) {
+            handleAttackEntries(attackEntries);
+        }
+        publishProgress("add_attack", attackEntries.size());
     }
 
     @Override
     public void flushFlowRules() {
         log.info("Received flush request");
-        flowRuleService.removeFlowRulesById(appId);
-        for (Device device: deviceService.getAvailableDevices()) {
-            meterService.purgeMeters(device.id(), appId);
+        synchronized (configLock) {
+            // Let in-flight adds land first, so that they are flushed instead of orphaned
+            if (!programmingScheduler.drain(PROGRAMMING_TIMEOUT)) {
+                log.warn("Programming operations still in flight while flushing");
+            }
+            flowRuleService.removeFlowRulesById(appId);
+            for (DeviceId deviceId: deviceRegistry.devices()) {
+                meterService.purgeMeters(deviceId, appId);
+            }
+            checkingState.clear();
+            sliceQoS.clear();
+            sliceAssignments.clear();
+            attackEntryStore.clear();
+            meterIndexAllocator.clear();
+            pendingReleases.clear();
+            mitigationEngine.clear();
+            mitigationActuator.clear();
+            reportCorrelator.clear();
+            isolationVerifier.clear();
+            activeProfile = null;
         }
+        publishProgress("flush", 0);
     }
 
     @Override
     public void turnOnChecking() {
         log.info("Received turnOnChecking request");
+        enableChecking(Collections.emptySet(), EnumSet.allOf(CheckType.class));
+    }
 
-        installAclPuntRules();
-
-        List<FlowRule> turnOnCheckingRules = new ArrayList<>();
-        for (Device device: deviceService.getAvailableDevices()) {
-            String tableIdIsoCheck = "FabricEgress.checker_control.tb_should_check_iso";
-            String tableIdQoSCheck = "FabricEgress.checker_control.tb_should_check_qos";
-            PiMatchFieldId ETH_IS_VALID = PiMatchFieldId.of("eth_is_valid");
-            PiActionId piActionIdCheckIso = PiActionId.of("FabricEgress.checker_control.check_iso");
-            PiActionId piActionIdCheckQoS = PiActionId.of("FabricEgress.checker_control.check_qos");
-
-            PiCriterion match1 = PiCriterion.builder()
-                    .matchExact(ETH_IS_VALID, 1)
-                    .build();
-
-            PiAction action1 = PiAction.builder()
-                    .withId(piActionIdCheckIso)
-                    .build();
+    @Override
+    public void turnOffChecking() {
+        log.info("Received turnOffChecking request");
+        disableChecking(Collections.emptySet(), EnumSet.allOf(CheckType.class));
+    }
 
-            turnOnCheckingRules.add(buildFlowRule(device.id(), appId, tableIdIsoCheck, match1, action1, MEDIUM_FLOW_RULE_PRIORITY));
+    @Override
+    public void enableChecking(Set<DeviceId> deviceIds, Set<CheckType> checkTypes) {
+        log.info("Received enableChecking request: devices={}, checks={}", deviceIds, checkTypes);
+        Set<DeviceId> targets = deviceIds.isEmpty() ? deviceRegistry.devices() : tpcDeviceIds(deviceIds);
+        updateChecking(targets, checkTypes, true);
+    }
 
-            PiCriterion match2 = PiCriterion.builder()
-                    .matchExact(ETH_IS_VALID, 1)
-                    .build();
+    @Override
+    public void disableChecking(Set<DeviceId> deviceIds, Set<CheckType> checkTypes) {
+        log.info("Received disableChecking request: devices={}, checks={}", deviceIds, checkTypes);
+        Set<DeviceId> targets = deviceIds.isEmpty() ? checkingState.devices() : deviceIds;
+        updateChecking(targets, checkTypes, false);
+    }
 
-            PiAction action2 = PiAction.builder()
-                    .withId(piActionIdCheckQoS)
-                    .build();
+    @Override
+    public Map<DeviceId, Set<CheckType>> getCheckingState() {
+        return checkingState.snapshot();
+    }
 
-            turnOnCheckingRules.add(buildFlowRule(device.id(), appId, tableIdQoSCheck, match2, action2, MEDIUM_FLOW_RULE_PRIORITY));
+    /**
+     * Moves the given devices to their new checking state and issues rule
+     * changes only for the (device, check type) pairs whose state changes.
+     * The punt ACL is installed the first time a device enables any check
+     * and is kept until the next flush. A change whose programming fails or
+     * is cancelled is rolled back, so that requesting it again reprograms
+     * it. Runs under configLock, like every other configuration change;
+     * rollbacks only take the checking state's own lock.
+     */
+    private void updateChecking(Set<DeviceId> deviceIds, Set<CheckType> checkTypes, boolean enable) {
+        String operation = enable ? "enable_checking" : "disable_checking";
+        int puntCount = 0;
+        int changeCount = 0;
+
+        // Checks only turn on once the device's critical rules are in place. Turning
+        // them off shares the gated lane and key, so it never overtakes a queued enable.
+        synchronized (configLock) {
+            for (CheckingState.Delta delta: checkingState.update(deviceIds, checkTypes, enable)) {
+                DeviceId deviceId = delta.getDeviceId();
+                long generation = delta.getGeneration();
+                if (delta.isPunt()) {
+                    schedulePuntRule(operation, deviceId, generation);
+                    puntCount++;
+                }
+                for (CheckType checkType: enable ? delta.getEnabled() : delta.getDisabled()) {
+                    FlowRule rule = checkingRule(deviceId, checkType);
+                    scheduleFlowRule(ProgrammingScheduler.Priority.GATED, operation, "checking/" + rule.table(),
+                            rule, enable)
+                            .whenComplete((result, error) -> {
+                                if (error != null && checkingState.rollback(deviceId, checkType, enable, generation)) {
+                                    log.warn("Rolled back {} of {} checks on {}", operation, checkType, deviceId);
+                                }
+                            });
+                    changeCount++;
+                }
+            }
         }
 
-        flowRuleService.applyFlowRules(turnOnCheckingRules.toArray(new FlowRule[turnOnCheckingRules.size()]));
+        log.info("Checking update: {} punt rules, {} rules to {}",
+                puntCount, changeCount, enable ? "apply" : "remove");
+        publishProgress(operation, puntCount + changeCount);
     }
 
-    @Override
-    public void turnOffChecking() {
-        log.info("Received turnOffChecking request");
+    private void schedulePuntRule(String operation, DeviceId deviceId, long generation) {
+        scheduleFlowRule(ProgrammingScheduler.Priority.CRITICAL, operation, "punt_acl",
+                failedPacketsAclRule(deviceId), true)
+                .whenComplete((result, error) -> {
+                    if (error != null && checkingState.rollbackPunt(deviceId, generation)) {
+                        log.warn("Rolled back punt rule on {}", deviceId);
+                    }
+                });
+    }
 
-        List<FlowRule> turnOnCheckingRules = new ArrayList<>();
-        for (Device device: deviceService.getAvailableDevices()) {
-            String tableIdIsoCheck = "FabricEgress.checker_control.tb_should_check_iso";
-            String tableIdQoSCheck = "FabricEgress.checker_control.tb_should_check_qos";
-            PiMatchFieldId ETH_IS_VALID = PiMatchFieldId.of("eth_is_valid");
-            PiActionId piActionIdCheckIso = PiActionId.of("FabricEgress.checker_control.check_iso");
-            PiActionId piActionIdCheckQoS = PiActionId.of("FabricEgress.checker_control.check_qos");
+    /**
+     * Drops the checking state of a device that left the registry, so that
+     * its punt rule is installed again and checks start from scratch if it
+     * comes back.
+     */
+    private void forgetDevice(DeviceId deviceId) {
+        synchronized (configLock) {
+            programmingScheduler.remove(deviceId);
+            checkingState.remove(deviceId);
+        }
+        log.info("Forgot checking state of {}", deviceId);
+    }
 
-            PiCriterion match1 = PiCriterion.builder()
-                    .matchExact(ETH_IS_VALID, 1)
-                    .build();
+    public FlowRule checkingRule(DeviceId deviceId, CheckType checkType) {
+        PiMatchFieldId ETH_IS_VALID = PiMatchFieldId.of("eth_is_valid");
 
-            PiAction action1 = PiAction.builder()
-                    .withId(piActionIdCheckIso)
-                    .build();
+        PiCriterion match = PiCriterion.builder()
+                .matchExact(ETH_IS_VALID, 1)
+                .build();
 
-            turnOnCheckingRules.add(buildFlowRule(device.id(), appId, tableIdIsoCheck, match1, action1, MEDIUM_FLOW_RULE_PRIORITY));
+        PiAction action = PiAction.builder()
+                .withId(PiActionId.of(checkType.getActionId()))
+                .build();
 
-            PiCriterion match2 = PiCriterion.builder()
-                    .matchExact(ETH_IS_VALID, 1)
-                    .build();
+        return buildFlowRule(deviceId, appId, checkType.getTableId(), match, action, MEDIUM_FLOW_RULE_PRIORITY);
+    }
 
-            PiAction action2 = PiAction.builder()
-                    .withId(piActionIdCheckQoS)
-                    .build();
+    /**
+     * Drops the devices that are not TPC-capable, with a warning.
+     */
+    private Set<DeviceId> tpcDeviceIds(Set<DeviceId> deviceIds) {
+        Set<DeviceId> tpcDeviceIds = new HashSet<>();
+        for (DeviceId deviceId: deviceIds) {
+            if (isTpcDevice(deviceId)) {
+                tpcDeviceIds.add(deviceId);
+            }
+        }
+        return tpcDeviceIds;
+    }
 
-            turnOnCheckingRules.add(buildFlowRule(device.id(), appId, tableIdQoSCheck, match2, action2, MEDIUM_FLOW_RULE_PRIORITY));
+    private boolean isTpcDevice(DeviceId deviceId) {
+        if (deviceRegistry.contains(deviceId)) {
+            return true;
         }
+        log.warn("Skipping {}: device is unavailable or its pipeconf lacks the TPC tables", deviceId);
+        return false;
+    }
 
-        flowRuleService.removeFlowRules(turnOnCheckingRules.toArray(new FlowRule[turnOnCheckingRules.size()]));
+    @Override
+    public Set<DeviceId> getTpcDevices() {
+        return deviceRegistry.devices();
     }
 
     @Override
@@ -206,13 +467,255 @@ public class TPCComponent implements TPCService {
         setUpTelemetryStripping();
 
         log.info("Received checkerSliceIdEntries: {}", checkerSliceIdEntries);
-        handleCheckerSliceIdEntries(checkerSliceIdEntries);
+        List<CheckerSliceIdEntry> accepted = new ArrayList<>(checkerSliceIdEntries);
+        synchronized (configLock) {
+            releasePendingSlices();
+            for (Finding finding: isolationVerifier.check(checkerSliceIdEntries)) {
+                log.warn("{}", finding);
+                if (finding.isBlocking()) {
+                    accepted.remove(finding.getEntry());
+                }
+            }
+            handleCheckerSliceIdEntries(accepted);
+        }
+        publishProgress("add_slice_id", accepted.size());
+    }
+
+    @Override
+    public List<Finding> verifyCheckerSliceIdEntries(List<CheckerSliceIdEntry> checkerSliceIdEntries) {
+        return isolationVerifier.check(checkerSliceIdEntries);
+    }
+
+    @Override
+    public IsolationVerifier.State getIsolationState() {
+        return isolationVerifier.state();
+    }
+
+    @Override
+    public List<Finding> putProfile(ConfigProfile profile) {
+        synchronized (configLock) {
+            List<Finding> findings = isolationVerifier.check(profile.getSliceIdEntries(), true);
+            for (Finding finding: findings) {
+                if (finding.isBlocking()) {
+                    log.warn("Rejecting profile {}: {}", profile.getName(), finding);
+                    return findings;
+                }
+            }
+            if (profiles.put(profile.getName(), profile) != null) {
+                log.info("Replaced {}", profile);
+            } else {
+                log.info("Stored {}", profile);
+            }
+            return findings;
+        }
+    }
+
+    @Override
+    public void removeProfile(String name) {
+        synchronized (configLock) {
+            if (name.equals(activeProfile)) {
+                throw new IllegalStateException("Profile " + name + " is active");
+            }
+            profiles.remove(name);
+        }
+    }
+
+    @Override
+    public Map<String, ConfigProfile> getProfiles() {
+        return Collections.unmodifiableMap(profiles);
+    }
+
+    @Override
+    public String getActiveProfile() {
+        return activeProfile;
+    }
+
+    /**
+     * Makes the profile the complete desired state. The profile is verified
+     * again against the current topology, then applied; if applying fails,
+     * the configuration in place before is applied again and the profile
+     * does not become active.
+     */
+    @Override
+    public void activateProfile(String name) {
+        synchronized (configLock) {
+            ConfigProfile profile = profiles.get(name);
+            if (profile == null) {
+                throw new IllegalArgumentException("Unknown profile " + name);
+            }
+            // Links may have changed since the profile was stored
+            for (Finding finding: isolationVerifier.check(profile.getSliceIdEntries(), true)) {
+                if (finding.isBlocking()) {
+                    throw new IllegalStateException("Profile " + name + " is no longer valid: " + finding.getMessage());
+                }
+            }
+            log.info("Activating {} (was {})", profile, activeProfile);
+            releasePendingSlices();
+            setUpTelemetryStripping();
+
+            ConfigProfile previous = currentConfig(activeProfile == null ? "previous" : activeProfile);
+            String failure = applyProfile(profile);
+            if (failure != null) {
+                log.error("Unable to activate profile {}: {}; rolling back", name, failure);
+                String rollbackFailure = applyProfile(previous);
+                if (rollbackFailure != null) {
+                    log.error("Unable to roll back to {}: {}", previous, rollbackFailure);
+                }
+                throw new IllegalStateException("Unable to activate profile " + name + ": " + failure);
+            }
+            activeProfile = name;
+        }
+    }
+
+    /**
+     * Moves to the profile while touching only what differs from the
+     * current state. Meter indexes for new slices are checked first, so a
+     * profile that cannot get them fails before anything changes. New and
+     * changed meters, slice ids and attack entries are then submitted, and
+     * entries missing from the profile are only removed once all of them
+     * succeeded, so old entries always outlive the entries that replace
+     * them. Lookup rules and meters are keyed by port and index, so changed
+     * entries are modified in place.
+     *
+     * @return null on success, or why the new entries could not be programmed,
+     *         in which case nothing was removed
+     */
+    private String applyProfile(ConfigProfile profile) {
+        ProfileDelta delta = ProfileDelta.compute(profile, sliceQoS, sliceAssignments, attackEntryStore);
+
+        List<Integer> neededSlices = new ArrayList<>();
+        if (!deviceRegistry.devices().isEmpty()) {
+            delta.getChangedQoS().forEach(entry -> neededSlices.add(entry.getSliceId()));
+        }
+        for (CheckerSliceIdEntry entry: delta.getChangedSliceIds()) {
+            if (deviceRegistry.contains(DeviceId.deviceId(entry.getDeviceId()))) {
+                neededSlices.add(entry.getSliceId());
+            }
+        }
+        if (!meterIndexAllocator.canAcquire(neededSlices)) {
+            return "not enough free slice meter indexes";
+        }
+
+        // Make: meters, then slice ids, then attack entries that are new or changed
+        List<CompletableFuture<Void>> made = new ArrayList<>();
+        for (SliceQoSEntry sliceQoSEntry: delta.getChangedQoS()) {
+            made.add(handleSliceQoSEntry(sliceQoSEntry));
+        }
+
+        List<FlowRule> sliceIdRules = new ArrayList<>();
+        String failure = null;
+        for (CheckerSliceIdEntry checkerSliceIdEntry: delta.getChangedSliceIds()) {
+            DeviceId deviceId = DeviceId.deviceId(checkerSliceIdEntry.getDeviceId());
+            sliceIdRules.addAll(prepareCheckerSliceIdEntry(checkerSliceIdEntry));
+            if (failure == null && isTpcDevice(deviceId) && sliceAssignments.get(
+                    deviceId, checkerSliceIdEntry.getPortNumber()) != checkerSliceIdEntry.getSliceId()) {
+                failure = "no slice meter index for " + checkerSliceIdEntry;
+            }
+        }
+        made.add(scheduleFlowRules(ProgrammingScheduler.Priority.CRITICAL, "activate_profile", sliceIdRules, true));
+
+        Map<DeviceId, List<Long>> attackMatches = storeAttackEntries(delta.getChangedAttacks());
+        int attacksChanged = attackMatches.values().stream().mapToInt(List::size).sum();
+        made.add(scheduleAttackRules("activate_profile", attackMatches));
+
+        // Wait for everything submitted even on failure, so a rollback starts from settled state
+        String madeFailure = await(made, PROFILE_TIMEOUT);
+        if (failure != null || madeFailure != null) {
+            return failure != null ? failure : madeFailure;
+        }
+
+        // Break: slice ids, attack entries and meters that are not in the profile
+        for (CheckerSliceIdEntry staleAssignment: delta.getStaleSliceIds()) {
+            DeviceId deviceId = DeviceId.deviceId(staleAssignment.getDeviceId());
+            int removedSliceId = sliceAssignments.remove(deviceId, staleAssignment.getPortNumber());
+            isolationVerifier.unassign(deviceId, staleAssignment.getPortNumber(), removedSliceId);
+        }
+        scheduleSliceIdRemoval(delta.getStaleSliceIds());
+
+        Set<DeviceId> staleAttackDevices = new HashSet<>();
+        for (ExfiltrationAttackEntry staleAttack: delta.getStaleAttacks()) {
+            DeviceId deviceId = DeviceId.deviceId(staleAttack.getDeviceId());
+            attackEntryStore.remove(deviceId, staleAttack.getSrcAddress().toInt(), staleAttack.getDstAddress().toInt());
+            staleAttackDevices.add(deviceId);
+        }
+        for (DeviceId deviceId: staleAttackDevices) {
+            isolationVerifier.setAttacked(deviceId, attackEntryStore.sizeOf(deviceId) > 0);
+        }
+        scheduleAttackRemoval(delta.getStaleAttacks());
+
+        for (int sliceId: delta.getStaleQoS()) {
+            long pir = sliceQoS.remove(sliceId);
+            for (DeviceId deviceId: deviceRegistry.devices()) {
+                scheduleSliceMeterRemoval(deviceId, sliceId, pir);
+            }
+        }
+
+        log.info("Applied profile {}: {} meters, {} slice id rules and {} attack entries changed; "
+                        + "{} slice ids, {} attack entries and {} meters removed",
+                profile.getName(), delta.getChangedQoS().size(), sliceIdRules.size(), attacksChanged,
+                delta.getStaleSliceIds().size(), delta.getStaleAttacks().size(), delta.getStaleQoS().size());
+        publishProgress("activate_profile", delta.getChangedQoS().size() + sliceIdRules.size() + attacksChanged
+                + delta.getStaleSliceIds().size() + delta.getStaleAttacks().size() + delta.getStaleQoS().size());
+        return null;
+    }
+
+    /**
+     * Waits for programming operations, for at most the given time overall.
+     *
+     * @return null if all succeeded, or the first failure
+     */
+    private static String await(List<CompletableFuture<Void>> futures, long timeoutMillis) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return String.valueOf(e.getCause().getMessage());
+        } catch (CancellationException e) {
+            return String.valueOf(e.getMessage());
+        } catch (TimeoutException e) {
+            return "timed out after " + timeoutMillis + " ms";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    /**
+     * Returns the current configuration as a profile, to roll back to.
+     */
+    private ConfigProfile currentConfig(String name) {
+        List<CheckerSliceIdEntry> sliceIdEntries = new ArrayList<>();
+        sliceAssignments.forEach((deviceId, portNumber, sliceId) ->
+                sliceIdEntries.add(new CheckerSliceIdEntry(deviceId.toString(), portNumber, sliceId)));
+        List<SliceQoSEntry> sliceQoSEntries = new ArrayList<>();
+        sliceQoS.forEach((sliceId, pir) -> sliceQoSEntries.add(new SliceQoSEntry(sliceId, pir)));
+        List<ExfiltrationAttackEntry> attackEntries = new ArrayList<>();
+        attackEntryStore.forEach((deviceId, src, dst, srcRewritten, dstRewritten) ->
+                attackEntries.add(new ExfiltrationAttackEntry(deviceId.toString(), Ip4Address.valueOf(src),
+                        Ip4Address.valueOf(dst), Ip4Address.valueOf(srcRewritten), Ip4Address.valueOf(dstRewritten))));
+        return new ConfigProfile(name, sliceIdEntries, sliceQoSEntries, attackEntries);
+    }
+
+    /**
+     * Runs the slice index releases queued by completed removals. Called
+     * with configLock held, so that a release cannot race with a new
+     * assignment of the same slice.
+     */
+    private void releasePendingSlices() {
+        for (Runnable release = pendingReleases.poll(); release != null; release = pendingReleases.poll()) {
+            release.run();
+        }
     }
 
     @Override
     public void postSliceQoSEntries(List<SliceQoSEntry> sliceQoSEntries) {
         log.info("Received sliceQoSEntries: {}", sliceQoSEntries);
-        handleSliceQosEntries(sliceQoSEntries);
+        synchronized (configLock) {
+            releasePendingSlices();
+            handleSliceQosEntries(sliceQoSEntries);
+        }
+        publishProgress("add_slice_qos", sliceQoSEntries.size());
     }
 
     public void handleSliceQosEntries(List<SliceQoSEntry> sliceQoSEntries) {
@@ -221,59 +724,215 @@ public class TPCComponent implements TPCService {
         }
     }
 
-    public void handleSliceQoSEntry(SliceQoSEntry sliceQoSEntry) {
-        List<MeterRequest> sliceQoSEntryMeterRequests = new ArrayList<>();
-
-        sliceQoSEntryMeterRequests.addAll(getFlowRulesForSliceQoSEntry(sliceQoSEntry));
+    /**
+     * Records the slice QoS and schedules its meter on every device.
+     *
+     * @return future completed once every meter is programmed
+     */
+    public CompletableFuture<Void> handleSliceQoSEntry(SliceQoSEntry sliceQoSEntry) {
+        try {
+            meterIndexAllocator.acquire(deviceRegistry.devices(), sliceQoSEntry.getSliceId());
+        } catch (IllegalStateException e) {
+            log.error("Unable to install {}: {}", sliceQoSEntry, e.getMessage());
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        sliceQoS.put(sliceQoSEntry.getSliceId(), sliceQoSEntry.getPir());
 
-        for (MeterRequest meterRequest: sliceQoSEntryMeterRequests) {
-            meterService.submit(meterRequest);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (DeviceId deviceId: deviceRegistry.devices()) {
+            futures.add(scheduleSliceMeter(deviceId, sliceQoSEntry.getSliceId(), sliceQoSEntry.getPir()));
         }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> scheduleSliceMeter(DeviceId deviceId, int sliceId, long pir) {
+        return scheduleSliceMeter(ProgrammingScheduler.Priority.CRITICAL, "add_slice_qos", deviceId, sliceId, pir);
     }
 
-    public List<MeterRequest> getFlowRulesForSliceQoSEntry(SliceQoSEntry sliceQoSEntry) {
-        List<MeterRequest> meterRequests = new ArrayList<>();
+    private CompletableFuture<Void> scheduleSliceMeter(ProgrammingScheduler.Priority priority, String operation,
+                                                       DeviceId deviceId, int sliceId, long pir) {
+        return programmingScheduler.submit(deviceId, priority, sliceMeterKey(sliceId),
+                done -> meterService.submit(sliceMeterRequest(deviceId, sliceId, pir, new MeterContext() {
+                    @Override
+                    public void onSuccess(MeterRequest op) {
+                        publishProgressDone(operation, deviceId, 1, true);
+                        done.succeeded();
+                    }
+
+                    @Override
+                    public void onError(MeterRequest op, MeterFailReason reason) {
+                        log.warn("Unable to program slice {} meter on {}: {}", sliceId, deviceId, reason);
+                        publishProgressDone(operation, deviceId, 1, false);
+                        done.failed(String.valueOf(reason));
+                    }
+                })));
+    }
 
-        for (Device device: deviceService.getAvailableDevices()) {
-            MeterRequest.Builder meterRequest = DefaultMeterRequest.builder()
-                    .forDevice(device.id())
-                    .fromApp(appId)
-                    .withScope(MeterScope.of("FabricEgress.checker_control.slice_meter"))
-                    .withUnit(Meter.Unit.BYTES_PER_SEC)
-                    .withIndex((long) sliceQoSEntry.getSliceId());
+    private static String sliceMeterKey(int sliceId) {
+        return "slice_meter/" + sliceId;
+    }
 
-            Collection<Band> bands = Lists.newArrayList();
-            // Add rate 1
-            bands.add(DefaultBand.builder()
-                    .ofType(Band.Type.MARK_YELLOW)
-                    .withRate(0).burstSize(0)
-                    .build());
+    /**
+     * Withdraws the slice meter once the device's critical work is done.
+     * The withdrawal shares the meter's key, so a later add of the slice
+     * cancels it while it is queued. The slice index is only released once
+     * the meter has been withdrawn.
+     */
+    private void scheduleSliceMeterRemoval(DeviceId deviceId, int sliceId, long pir) {
+        MeterRequest meterRequest = sliceMeterRequest(deviceId, sliceId, pir);
+        MeterCellId meterCellId = PiMeterCellId.ofIndirect(
+                PiMeterId.of("FabricEgress.checker_control.slice_meter"), meterIndexAllocator.indexOf(sliceId));
+        programmingScheduler.submit(deviceId, ProgrammingScheduler.Priority.GATED, sliceMeterKey(sliceId), done -> {
+            meterService.withdraw(meterRequest, meterCellId);
+            publishProgressDone("activate_profile", deviceId, 1, true);
+            done.succeeded();
+        }).thenRun(() -> pendingReleases.add(() -> releaseSliceIfUnused(deviceId, sliceId)));
+    }
 
-            // Add rate 2
-            bands.add(DefaultBand.builder()
-                    .ofType(Band.Type.MARK_RED)
-                    .withRate(sliceQoSEntry.getPir() / 8).burstSize(60000)
-                    .build());
+    /**
+     * Removes the lookup rules of ports that left their slice once the
+     * device's critical work is done. Ports assigned again by the time the
+     * removal runs are skipped, as their rules now belong to the new
+     * assignment. The slice indexes are only released once the rules are
+     * gone.
+     */
+    private void scheduleSliceIdRemoval(List<CheckerSliceIdEntry> staleAssignments) {
+        Map<DeviceId, List<CheckerSliceIdEntry>> byDevice = new HashMap<>();
+        for (CheckerSliceIdEntry staleAssignment: staleAssignments) {
+            byDevice.computeIfAbsent(DeviceId.deviceId(staleAssignment.getDeviceId()), k -> new ArrayList<>())
+                    .add(staleAssignment);
+        }
+        byDevice.forEach((deviceId, entries) -> {
+            for (List<CheckerSliceIdEntry> batch: Lists.partition(entries, PROGRAMMING_BATCH_SIZE / 2)) {
+                programmingScheduler.submit(deviceId, ProgrammingScheduler.Priority.GATED, done -> {
+                    List<FlowRule> flowRules = new ArrayList<>();
+                    for (CheckerSliceIdEntry entry: batch) {
+                        if (sliceAssignments.get(deviceId, entry.getPortNumber()) < 0) {
+                            flowRules.addAll(getFlowRulesForCheckerSliceIdEntry(entry));
+                        }
+                    }
+                    if (flowRules.isEmpty()) {
+                        done.succeeded();
+                    } else {
+                        flowRulesOperation("activate_profile", deviceId, flowRules, false).execute(done);
+                    }
+                }).thenRun(() -> batch.forEach(entry -> pendingReleases.add(
+                        () -> releaseSliceIfUnused(deviceId, entry.getSliceId()))));
+            }
+        });
+    }
 
-            meterRequest.withBands(bands);
-            meterRequests.add(meterRequest.add());
+    /**
+     * Removes attack rules once the device's critical work is done,
+     * skipping entries added again by the time the removal runs.
+     */
+    private void scheduleAttackRemoval(List<ExfiltrationAttackEntry> staleAttacks) {
+        Map<DeviceId, List<ExfiltrationAttackEntry>> byDevice = new HashMap<>();
+        for (ExfiltrationAttackEntry staleAttack: staleAttacks) {
+            byDevice.computeIfAbsent(DeviceId.deviceId(staleAttack.getDeviceId()), k -> new ArrayList<>())
+                    .add(staleAttack);
         }
+        byDevice.forEach((deviceId, entries) -> {
+            for (List<ExfiltrationAttackEntry> batch: Lists.partition(entries, PROGRAMMING_BATCH_SIZE)) {
+                programmingScheduler.submit(deviceId, ProgrammingScheduler.Priority.GATED, done -> {
+                    List<FlowRule> flowRules = new ArrayList<>();
+                    for (ExfiltrationAttackEntry entry: batch) {
+                        int src = entry.getSrcAddress().toInt();
+                        int dst = entry.getDstAddress().toInt();
+                        if (!attackEntryStore.getRewrite(deviceId, src, dst).isPresent()) {
+                            flowRules.add(attackFlowRule(deviceId, src, dst,
+                                    entry.getSrcAddressRewritten().toInt(), entry.getDstAddressRewritten().toInt()));
+                        }
+                    }
+                    if (flowRules.isEmpty()) {
+                        done.succeeded();
+                    } else {
+                        flowRulesOperation("activate_profile", deviceId, flowRules, false).execute(done);
+                    }
+                });
+            }
+        });
+    }
 
-        return meterRequests;
+    public MeterRequest sliceMeterRequest(DeviceId deviceId, int sliceId, long pir) {
+        return sliceMeterRequest(deviceId, sliceId, pir, null);
+    }
+
+    public MeterRequest sliceMeterRequest(DeviceId deviceId, int sliceId, long pir, MeterContext context) {
+        MeterRequest.Builder meterRequest = DefaultMeterRequest.builder()
+                .forDevice(deviceId)
+                .fromApp(appId)
+                .withScope(MeterScope.of("FabricEgress.checker_control.slice_meter"))
+                .withUnit(Meter.Unit.BYTES_PER_SEC)
+                .withIndex((long) meterIndexAllocator.indexOf(sliceId));
+
+        Collection<Band> bands = Lists.newArrayList();
+        // Add rate 1
+        bands.add(DefaultBand.builder()
+                .ofType(Band.Type.MARK_YELLOW)
+                .withRate(0).burstSize(0)
+                .build());
+
+        // Add rate 2
+        bands.add(DefaultBand.builder()
+                .ofType(Band.Type.MARK_RED)
+                .withRate(pir / 8).burstSize(60000)
+                .build());
+
+        meterRequest.withBands(bands);
+        if (context != null) {
+            meterRequest.withContext(context);
+        }
+        return meterRequest.add();
     }
 
     public void handleCheckerSliceIdEntries(List<CheckerSliceIdEntry> checkerSliceIdEntries) {
+        List<FlowRule> checkerSliceIdEntryFlowRules = new ArrayList<>();
+
         for (CheckerSliceIdEntry checkerSliceIdEntry: checkerSliceIdEntries) {
-            handleCheckerSliceIdEntry(checkerSliceIdEntry);
+            checkerSliceIdEntryFlowRules.addAll(prepareCheckerSliceIdEntry(checkerSliceIdEntry));
         }
+
+        scheduleFlowRules(ProgrammingScheduler.Priority.CRITICAL, "add_slice_id", checkerSliceIdEntryFlowRules, true);
     }
 
     public void handleCheckerSliceIdEntry(CheckerSliceIdEntry checkerSliceIdEntry) {
-        List<FlowRule> checkerSliceIdEntryFlowRules = new ArrayList<>();
+        handleCheckerSliceIdEntries(Collections.singletonList(checkerSliceIdEntry));
+    }
+
+    /**
+     * Allocates the slice's meter index, records the assignment and returns
+     * the rules to program, or no rules if the slice cannot be allocated.
+     */
+    private List<FlowRule> prepareCheckerSliceIdEntry(CheckerSliceIdEntry checkerSliceIdEntry) {
+        DeviceId deviceId = DeviceId.deviceId(checkerSliceIdEntry.getDeviceId());
+        if (!isTpcDevice(deviceId)) {
+            return Collections.emptyList();
+        }
+        try {
+            meterIndexAllocator.acquire(deviceId, checkerSliceIdEntry.getSliceId());
+        } catch (IllegalStateException e) {
+            log.error("Unable to install {}: {}", checkerSliceIdEntry, e.getMessage());
+            return Collections.emptyList();
+        }
+        int previousSliceId = sliceAssignments.put(
+                deviceId, checkerSliceIdEntry.getPortNumber(), checkerSliceIdEntry.getSliceId());
+        if (previousSliceId >= 0 && previousSliceId != checkerSliceIdEntry.getSliceId()) {
+            releaseSliceIfUnused(deviceId, previousSliceId);
+        }
+        isolationVerifier.assign(deviceId, checkerSliceIdEntry.getPortNumber(), previousSliceId,
+                checkerSliceIdEntry.getSliceId());
 
-        checkerSliceIdEntryFlowRules.addAll(getFlowRulesForCheckerSliceIdEntry(checkerSliceIdEntry));
+        return getFlowRulesForCheckerSliceIdEntry(checkerSliceIdEntry);
+    }
 
-        flowRuleService.applyFlowRules(checkerSliceIdEntryFlowRules.toArray(new FlowRule[checkerSliceIdEntryFlowRules.size()]));
+    private void releaseSliceIfUnused(DeviceId deviceId, int sliceId) {
+        if (sliceQoS.containsKey(sliceId) || sliceAssignments.isSliceUsedOn(deviceId, sliceId)) {
+            return;
+        }
+        meterIndexAllocator.release(deviceId, sliceId);
     }
 
     public List<FlowRule> getFlowRulesForCheckerSliceIdEntry(CheckerSliceIdEntry checkerSliceIdEntry) {
@@ -287,6 +946,7 @@ public class TPCComponent implements TPCService {
         PiActionId piActionIdEgressSliceLookup = PiActionId.of("FabricEgress.checker_control.lookup_key_eg_port_in_slices");
         PiActionParamId IG_SLICE_ID = PiActionParamId.of("ig_slice_id");
         PiActionParamId EG_SLICE_ID = PiActionParamId.of("eg_slice_id");
+        int sliceIndex = meterIndexAllocator.indexOf(checkerSliceIdEntry.getSliceId());
 
         PiCriterion match1 = PiCriterion.builder()
                 .matchExact(HDR_IG_PORT, checkerSliceIdEntry.getPortNumber().toLong())
@@ -294,7 +954,7 @@ public class TPCComponent implements TPCService {
 
         PiAction action1 = PiAction.builder()
                 .withId(piActionIdIngressSliceLookup)
-                .withParameter(new PiActionParam(IG_SLICE_ID, checkerSliceIdEntry.getSliceId()))
+                .withParameter(new PiActionParam(IG_SLICE_ID, sliceIndex))
                 .build();
 
         flowRules.add(buildFlowRule(DeviceId.deviceId(checkerSliceIdEntry.getDeviceId()), appId, tableIdIngressLookup, match1, action1, MEDIUM_FLOW_RULE_PRIORITY));
@@ -305,7 +965,7 @@ public class TPCComponent implements TPCService {
 
         PiAction action2 = PiAction.builder()
                 .withId(piActionIdEgressSliceLookup)
-                .withParameter(new PiActionParam(EG_SLICE_ID, checkerSliceIdEntry.getSliceId()))
+                .withParameter(new PiActionParam(EG_SLICE_ID, sliceIndex))
                 .build();
 
         flowRules.add(buildFlowRule(DeviceId.deviceId(checkerSliceIdEntry.getDeviceId()), appId, tableIdEgressLookup, match2, action2, MEDIUM_FLOW_RULE_PRIORITY));
@@ -316,8 +976,8 @@ public class TPCComponent implements TPCService {
     public void setUpTelemetryStripping() {
         List<FlowRule> flowRules = new ArrayList<>();
 
-        for (Device device: deviceService.getAvailableDevices()) {
-            for (PortNumber portNumber: edgePortsOnDevice(device.id())) {
+        for (DeviceId deviceId: deviceRegistry.devices()) {
+            for (PortNumber portNumber: edgePortsOnDevice(deviceId)) {
                 PiMatchFieldId HDR_IG_PORT = PiMatchFieldId.of("ig_port");
                 PiMatchFieldId HDR_EG_PORT = PiMatchFieldId.of("eg_port");
                 String tableIdCheckFirstHop = "FabricIngress.init_control.tb_check_first_hop";
@@ -333,7 +993,7 @@ public class TPCComponent implements TPCService {
                         .withId(piActionIdCheckFirstHop)
                         .build();
 
-                flowRules.add(buildFlowRule(device.id(), appId, tableIdCheckFirstHop, match3, action3, MEDIUM_FLOW_RULE_PRIORITY));
+                flowRules.add(buildFlowRule(deviceId, appId, tableIdCheckFirstHop, match3, action3, MEDIUM_FLOW_RULE_PRIORITY));
 
                 PiCriterion match4 = PiCriterion.builder()
                         .matchExact(HDR_EG_PORT, portNumber.toLong())
@@ -343,11 +1003,11 @@ public class TPCComponent implements TPCService {
                         .withId(piActionIdCheckLastHop)
                         .build();
 
-                flowRules.add(buildFlowRule(device.id(), appId, tableIdCheckLastHop, match4, action4, MEDIUM_FLOW_RULE_PRIORITY));
+                flowRules.add(buildFlowRule(deviceId, appId, tableIdCheckLastHop, match4, action4, MEDIUM_FLOW_RULE_PRIORITY));
             }
         }
 
-        flowRuleService.applyFlowRules(flowRules.toArray(new FlowRule[flowRules.size()]));
+        scheduleFlowRules(ProgrammingScheduler.Priority.CRITICAL, "telemetry_stripping", flowRules, true);
     }
 
     public List<PortNumber> edgePortsOnDevice(DeviceId deviceId) {
@@ -367,23 +1027,96 @@ public class TPCComponent implements TPCService {
         return portNumbersOnDevice;
     }
 
-    public void handleAttackEntries(List<ExfiltrationAttackEntry> attackEntries) {
+    /**
+     * Stores the entries in packed form and submits rules only for the
+     * entries that are new or changed. Rules are built from the store when
+     * their batch runs and are not retained while queued.
+     *
+     * @return number of new or changed entries
+     */
+    public int handleAttackEntries(List<ExfiltrationAttackEntry> attackEntries) {
+        Map<DeviceId, List<Long>> attackMatches = storeAttackEntries(attackEntries);
+        scheduleAttackRules("add_attack", attackMatches);
+        return attackMatches.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Stores the entries and returns the packed matched pairs of the
+     * entries that are new or changed, per device.
+     */
+    private Map<DeviceId, List<Long>> storeAttackEntries(List<ExfiltrationAttackEntry> attackEntries) {
+        Map<DeviceId, List<Long>> attackMatches = new HashMap<>();
+
         for (ExfiltrationAttackEntry attackEntry: attackEntries) {
-            handleAttackEntry(attackEntry);
+            DeviceId deviceId = DeviceId.deviceId(attackEntry.getDeviceId());
+            if (!isTpcDevice(deviceId)) {
+                continue;
+            }
+            int srcAddress = attackEntry.getSrcAddress().toInt();
+            int dstAddress = attackEntry.getDstAddress().toInt();
+            int srcAddressRewritten = attackEntry.getSrcAddressRewritten().toInt();
+            int dstAddressRewritten = attackEntry.getDstAddressRewritten().toInt();
+
+            if (attackEntryStore.put(deviceId, srcAddress, dstAddress, srcAddressRewritten, dstAddressRewritten)) {
+                attackMatches.computeIfAbsent(deviceId, k -> new ArrayList<>())
+                        .add(AttackEntryStore.pack(srcAddress, dstAddress));
+                isolationVerifier.setAttacked(deviceId, true);
+            }
         }
+        return attackMatches;
     }
 
-    public void handleAttackEntry(ExfiltrationAttackEntry attackEntry) {
-        List<FlowRule> attackEntryFlowRules = new ArrayList<>();
-
-        attackEntryFlowRules.addAll(getFlowRulesForAttackEntry(attackEntry));
+    /**
+     * Submits the attack rules of the matched pairs as per-device batches.
+     * Each batch builds its rules from the store when it runs, so entries
+     * removed by then are skipped and changed entries use their current
+     * rewrite.
+     *
+     * @return future completed once every batch succeeded
+     */
+    private CompletableFuture<Void> scheduleAttackRules(String operation, Map<DeviceId, List<Long>> attackMatches) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        attackMatches.forEach((deviceId, matches) -> {
+            for (List<Long> batch: Lists.partition(matches, PROGRAMMING_BATCH_SIZE)) {
+                long[] packed = Longs.toArray(batch);
+                futures.add(programmingScheduler.submit(deviceId, ProgrammingScheduler.Priority.BULK, done -> {
+                    List<FlowRule> flowRules = new ArrayList<>(packed.length);
+                    for (long match: packed) {
+                        int src = (int) (match >>> 32);
+                        int dst = (int) match;
+                        OptionalLong rewrite = attackEntryStore.getRewrite(deviceId, src, dst);
+                        if (rewrite.isPresent()) {
+                            flowRules.add(attackFlowRule(deviceId, src, dst,
+                                    (int) (rewrite.getAsLong() >>> 32), (int) rewrite.getAsLong()));
+                        }
+                    }
+                    if (flowRules.isEmpty()) {
+                        done.succeeded();
+                    } else {
+                        flowRulesOperation(operation, deviceId, flowRules, true).execute(done);
+                    }
+                }));
+            }
+        });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
 
-        flowRuleService.applyFlowRules(attackEntryFlowRules.toArray(new FlowRule[attackEntryFlowRules.size()]));
+    public void handleAttackEntry(ExfiltrationAttackEntry attackEntry) {
+        handleAttackEntries(Collections.singletonList(attackEntry));
     }
 
     public List<FlowRule> getFlowRulesForAttackEntry(ExfiltrationAttackEntry attackEntry) {
         List<FlowRule> flowRules = new ArrayList<>();
 
+        flowRules.add(attackFlowRule(DeviceId.deviceId(attackEntry.getDeviceId()),
+                attackEntry.getSrcAddress().toInt(), attackEntry.getDstAddress().toInt(),
+                attackEntry.getSrcAddressRewritten().toInt(), attackEntry.getDstAddressRewritten().toInt()));
+
+        return flowRules;
+    }
+
+    public FlowRule attackFlowRule(DeviceId deviceId, int srcAddress, int dstAddress,
+                                   int srcAddressRewritten, int dstAddressRewritten) {
         String tableId = "FabricIngress.attack_ingress.attack";
         PiMatchFieldId HDR_IPV4_SRC = PiMatchFieldId.of("ipv4_src");
         PiMatchFieldId HDR_IPV4_DST = PiMatchFieldId.of("ipv4_dst");
@@ -392,30 +1125,93 @@ public class TPCComponent implements TPCService {
         PiActionParamId IPV4_DST_REWRITTEN = PiActionParamId.of("ipv4_dst_addr");
 
         PiCriterion match = PiCriterion.builder()
-                .matchExact(HDR_IPV4_SRC, attackEntry.getSrcAddress().toOctets())
-                .matchExact(HDR_IPV4_DST, attackEntry.getDstAddress().toOctets())
+                .matchExact(HDR_IPV4_SRC, srcAddress)
+                .matchExact(HDR_IPV4_DST, dstAddress)
                 .build();
 
         PiAction action = PiAction.builder()
                 .withId(piActionIdExfiltrate)
-                .withParameter(new PiActionParam(IPV4_SRC_REWRITTEN, attackEntry.getSrcAddressRewritten().toOctets()))
-                .withParameter(new PiActionParam(IPV4_DST_REWRITTEN, attackEntry.getDstAddressRewritten().toOctets()))
+                .withParameter(new PiActionParam(IPV4_SRC_REWRITTEN, srcAddressRewritten))
+                .withParameter(new PiActionParam(IPV4_DST_REWRITTEN, dstAddressRewritten))
                 .build();
 
-        flowRules.add(buildFlowRule(DeviceId.deviceId(attackEntry.getDeviceId()), appId, tableId, match, action, MEDIUM_FLOW_RULE_PRIORITY));
-
-        return flowRules;
+        return buildFlowRule(deviceId, appId, tableId, match, action, MEDIUM_FLOW_RULE_PRIORITY);
     }
 
     public void installAclPuntRules()
     {
-        List<FlowRule> puntRules = new ArrayList<>();
-        for (Device device: deviceService.getAvailableDevices()) {
-            FlowRule puntRule = failedPacketsAclRule(device.id());
-            puntRules.add(puntRule);
+        synchronized (configLock) {
+            for (DeviceId deviceId: deviceRegistry.devices()) {
+                OptionalLong generation = checkingState.markPunted(deviceId);
+                if (generation.isPresent()) {
+                    schedulePuntRule("punt_acl", deviceId, generation.getAsLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the rules to the programming scheduler as per-device batches.
+     *
+     * @param priority scheduling priority of the rules
+     * @param operation operation name used in progress events
+     * @param flowRules rules to program
+     * @param add true to install the rules, false to remove them
+     * @return future completed once every batch succeeded
+     */
+    private CompletableFuture<Void> scheduleFlowRules(ProgrammingScheduler.Priority priority, String operation,
+                                                     List<FlowRule> flowRules, boolean add) {
+        Map<DeviceId, List<FlowRule>> rulesByDevice = new HashMap<>();
+        for (FlowRule flowRule: flowRules) {
+            rulesByDevice.computeIfAbsent(flowRule.deviceId(), k -> new ArrayList<>()).add(flowRule);
         }
 
-        flowRuleService.applyFlowRules(puntRules.toArray(new FlowRule[puntRules.size()]));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        rulesByDevice.forEach((deviceId, deviceRules) -> {
+            for (List<FlowRule> batch: Lists.partition(deviceRules, PROGRAMMING_BATCH_SIZE)) {
+                futures.add(programmingScheduler.submit(deviceId, priority,
+                        flowRulesOperation(operation, deviceId, batch, add)));
+            }
+        });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Hands a single rule to the programming scheduler, keyed so that it
+     * supersedes queued operations on the same entry.
+     */
+    private CompletableFuture<Void> scheduleFlowRule(ProgrammingScheduler.Priority priority, String operation,
+                                                    String key, FlowRule flowRule, boolean add) {
+        return programmingScheduler.submit(flowRule.deviceId(), priority, key,
+                flowRulesOperation(operation, flowRule.deviceId(), Collections.singletonList(flowRule), add));
+    }
+
+    private ProgrammingScheduler.Operation flowRulesOperation(String operation, DeviceId deviceId,
+                                                              List<FlowRule> batch, boolean add) {
+        return done -> {
+            FlowRuleOperations.Builder ops = FlowRuleOperations.builder();
+            for (FlowRule flowRule: batch) {
+                if (add) {
+                    ops.add(flowRule);
+                } else {
+                    ops.remove(flowRule);
+                }
+            }
+            flowRuleService.apply(ops.build(new FlowRuleOperationsContext() {
+                @Override
+                public void onSuccess(FlowRuleOperations ops) {
+                    publishProgressDone(operation, deviceId, batch.size(), true);
+                    done.succeeded();
+                }
+
+                @Override
+                public void onError(FlowRuleOperations ops) {
+                    log.warn("Unable to program {} rules for {} on {}", batch.size(), operation, deviceId);
+                    publishProgressDone(operation, deviceId, batch.size(), false);
+                    done.failed("flow rule operations failed");
+                }
+            }));
+        };
     }
 
     public FlowRule failedPacketsAclRule(DeviceId deviceId)
@@ -435,16 +1231,430 @@ public class TPCComponent implements TPCService {
         return buildFlowRule(deviceId, appId, tableId, match, action, HIGH_FLOW_RULE_PRIORITY);
     }
 
+    public FlowRule mitigationDropRule(DeviceId deviceId, PortNumber portNumber)
+    {
+        String tableId = "FabricIngress.acl.acl";
+        PiMatchFieldId HDR_IG_PORT = PiMatchFieldId.of("ig_port");
+        PiActionId piActionId = PiActionId.of("FabricIngress.acl.drop");
+
+        PiCriterion match = PiCriterion.builder()
+                .matchTernary(HDR_IG_PORT, portNumber.toLong(), 0x1FF)
+                .build();
+
+        PiAction action = PiAction.builder()
+                .withId(piActionId)
+                .build();
+
+        return buildFlowRule(deviceId, appId, tableId, match, action, DEFAULT_FLOW_RULE_PRIORITY);
+    }
+
+    @Override
+    public ReportSuppressor.Summary getReportSummary() {
+        return reportSuppressor.lastSummary();
+    }
+
+    @Override
+    public long getUnmappedReports() {
+        return unmappedReports.sum();
+    }
+
+    @Override
+    public void setMitigationEnabled(boolean enabled) {
+        log.info("Received setMitigationEnabled request: {}", enabled);
+        mitigationEngine.setEnabled(enabled);
+    }
+
+    @Override
+    public MitigationEngine.Stats getMitigationStats() {
+        return mitigationEngine.stats();
+    }
+
+    @Override
+    public ReportJournal.Stats getJournalStats() {
+        return reportJournal.stats();
+    }
+
+    @Override
+    public void replayJournal(double speed) {
+        log.info("Received replayJournal request: speed={}", speed);
+        ReportJournalReplayer replayer = new ReportJournalReplayer(reportJournal.getDirectory(), speed);
+        replayExecutor.execute(() -> {
+            // Replay into a pipeline of its own: no journal, no mitigation, and
+            // suppression windows and incidents that do not mix with live reports
+            ReportSuppressor suppressor = new ReportSuppressor(
+                    REPORT_BLOOM_BITS, REPORT_BLOOM_HASHES, REPORT_SKETCH_DEPTH, REPORT_SKETCH_WIDTH, REPORT_TOP_K);
+            ReportCorrelator correlator = new ReportCorrelator(linkService, timerWheel, REPORT_CORRELATION_WINDOW,
+                    incident -> emitIncident(incident, true));
+            ReportPipeline pipeline = new ReportPipeline(null, suppressor, null, correlator,
+                    report -> publishViolation(report, true), new ReportPipelineStats());
+            long[] windowEnd = {Long.MIN_VALUE};
+            try {
+                long replayed = replayer.replay(report -> {
+                    // Rotate on journaled time, so windows match the original run
+                    if (report.getTimestamp() >= windowEnd[0]) {
+                        if (windowEnd[0] != Long.MIN_VALUE) {
+                            logReplaySummary(suppressor.rotate());
+                        }
+                        windowEnd[0] = report.getTimestamp() + REPORT_WINDOW;
+                    }
+                    pipeline.offer(report, System.nanoTime());
+                });
+                logReplaySummary(suppressor.rotate());
+                log.info("Replayed {} journaled reports, skipped {} corrupt records",
+                        replayed, replayer.getCorrupt());
+            } catch (IOException e) {
+                log.error("Unable to replay report journal", e);
+            }
+        });
+    }
+
+    private void logReplaySummary(ReportSuppressor.Summary summary) {
+        if (summary.getReceived() > 0) {
+            log.info("Replayed {}", summary);
+        }
+    }
+
+    @Override
+    public LoadRun startLoadTest(LoadConfig config) {
+        log.info("Received startLoadTest request: {}", config);
+        LoadRun run = LoadRun.running(config);
+        LoadRun previous = loadRun.get();
+        if (previous != null && previous.getState() == LoadRun.State.RUNNING || !loadRun.compareAndSet(previous, run)) {
+            throw new IllegalStateException("A load test is already running");
+        }
+        loadExecutor.execute(() -> loadRun.set(runLoadTest(run)));
+        return run;
+    }
+
+    @Override
+    public LoadRun getLoadTest() {
+        return loadRun.get();
+    }
+
+    /**
+     * Runs a load test against a pipeline of its own: its own suppressor,
+     * correlator and stats, no journal, an event sink and a mitigation
+     * actuator that drop everything, and slice indexes taken as slice ids.
+     * Live reports, incidents and mitigations are not affected.
+     */
+    private LoadRun runLoadTest(LoadRun run) {
+        ReportSuppressor suppressor = new ReportSuppressor(
+                REPORT_BLOOM_BITS, REPORT_BLOOM_HASHES, REPORT_SKETCH_DEPTH, REPORT_SKETCH_WIDTH, REPORT_TOP_K);
+        ReportCorrelator correlator = new ReportCorrelator(linkService, timerWheel, REPORT_CORRELATION_WINDOW,
+                incident -> { });
+        MitigationEngine mitigation = new MitigationEngine(MITIGATION_THRESHOLD, MITIGATION_TTL, MITIGATION_RATE,
+                MITIGATION_BURST, timerWheel, new MitigationEngine.Actuator() {
+                    @Override
+                    public boolean install(Mitigation m) {
+                        return true;
+                    }
+
+                    @Override
+                    public void remove(Mitigation m) {
+                    }
+                });
+        mitigation.setEnabled(mitigationEngine.isEnabled());
+        ReportPipelineStats stats = new ReportPipelineStats();
+        ReportPipeline pipeline = new ReportPipeline(null, suppressor, mitigation, correlator, report -> { }, stats);
+        InternalPacketProcessor processor = new InternalPacketProcessor(pipeline, sliceIndex -> sliceIndex);
+
+        ScheduledFuture<?> rotation = reportExecutor.scheduleAtFixedRate(suppressor::rotate,
+                REPORT_WINDOW, REPORT_WINDOW, TimeUnit.MILLISECONDS);
+        try {
+            return run.done(new ReportLoadGenerator(processor, stats).run(run.getConfig()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return run.failed("Load run interrupted");
+        } catch (RuntimeException e) {
+            log.error("Load run failed", e);
+            return run.failed(String.valueOf(e.getMessage()));
+        } finally {
+            rotation.cancel(false);
+            mitigation.clear();
+            correlator.clear();
+        }
+    }
+
+    @Override
+    public ReportCorrelator.Stats getCorrelationStats() {
+        return reportCorrelator.stats();
+    }
+
+    @Override
+    public ProgrammingScheduler.Stats getProgrammingStats() {
+        return programmingScheduler.stats();
+    }
+
+    @Override
+    public EventBroker.Subscription subscribeEvents(int capacity) {
+        return eventBroker.subscribe(capacity);
+    }
+
+    private void publishEvent(TPCEvent.Type type, ObjectNode data) {
+        eventBroker.publish(new TPCEvent(type, System.currentTimeMillis(), data));
+    }
+
+    private void publishProgress(String operation, int count) {
+        if (!eventBroker.hasSubscribers()) {
+            return;
+        }
+        ObjectNode data = mapper.createObjectNode()
+                .put("operation", operation)
+                .put("count", count)
+                .put("stage", "submitted");
+        publishEvent(TPCEvent.Type.PROGRAMMING, data);
+    }
+
+    private void publishProgressDone(String operation, DeviceId deviceId, int count, boolean success) {
+        if (!eventBroker.hasSubscribers()) {
+            return;
+        }
+        ObjectNode data = mapper.createObjectNode()
+                .put("operation", operation)
+                .put("deviceId", deviceId.toString())
+                .put("count", count)
+                .put("stage", success ? "done" : "failed");
+        publishEvent(TPCEvent.Type.PROGRAMMING, data);
+    }
+
+    private void publishCriticalFailure(DeviceId deviceId, String reason, int cancelled) {
+        log.error("Critical programming failed on {}: {}; {} gated operations cancelled, "
+                          + "checks they enabled or disabled are rolled back", deviceId, reason, cancelled);
+        if (!eventBroker.hasSubscribers()) {
+            return;
+        }
+        ObjectNode data = mapper.createObjectNode()
+                .put("deviceId", deviceId.toString())
+                .put("stage", "critical_failed")
+                .put("reason", reason)
+                .put("cancelled", cancelled);
+        publishEvent(TPCEvent.Type.PROGRAMMING, data);
+    }
+
+    private ObjectNode reportToJson(CheckerReport report) {
+        return mapper.createObjectNode()
+                .put("deviceId", report.getDeviceId().toString())
+                .put("portNumber", report.getPortNumber().toString())
+                .put("sliceId", report.getSliceId())
+                .put("checkType", report.getCheckType().name().toLowerCase())
+                .put("timestamp", report.getTimestamp());
+    }
+
+    /**
+     * Publishes a unique report as a violation event. Incidents are logged
+     * and classified separately, by {@link #emitIncident}.
+     */
+    private void publishViolation(CheckerReport report, boolean replay) {
+        log.debug("Packet received from checker: {}", report);
+        if (eventBroker.hasSubscribers()) {
+            ObjectNode data = reportToJson(report);
+            if (replay) {
+                data.put("replay", true);
+            }
+            publishEvent(TPCEvent.Type.VIOLATION, data);
+        }
+    }
+
+    /**
+     * Logs and publishes one incident per correlated violation, located at
+     * its first violating hop and classified against the isolation model.
+     * Only anomalous incidents are logged as warnings.
+     */
+    private void emitIncident(ReportCorrelator.Incident incident, boolean replay) {
+        if (replay) {
+            // Replayed incidents reflect past state, do not classify them against the current one
+            log.info("Replayed {}", incident);
+            if (eventBroker.hasSubscribers()) {
+                ObjectNode data = incidentToJson(incident);
+                data.put("replay", true);
+                publishEvent(TPCEvent.Type.INCIDENT, data);
+            }
+            return;
+        }
+        IsolationVerifier.Verdict verdict = isolationVerifier.classify(incident.getFirstHop());
+        if (verdict == IsolationVerifier.Verdict.ANOMALOUS) {
+            log.warn("Anomalous {}", incident);
+        } else {
+            log.info("Expected {}", incident);
+        }
+        if (!eventBroker.hasSubscribers()) {
+            return;
+        }
+        ObjectNode data = incidentToJson(incident);
+        data.put("verdict", verdict.name().toLowerCase());
+        publishEvent(TPCEvent.Type.INCIDENT, data);
+    }
+
+    private ObjectNode incidentToJson(ReportCorrelator.Incident incident) {
+        ObjectNode data = reportToJson(incident.getFirstHop());
+        data.put("openedAt", incident.getOpenedAt());
+        ArrayNode devices = data.putArray("devices");
+        incident.getReports().forEach(report -> devices.add(report.getDeviceId().toString()));
+        return data;
+    }
+
+    private void emitReportSummary() {
+        try {
+            ReportSuppressor.Summary summary = reportSuppressor.rotate();
+            if (summary.getSuppressed() > 0) {
+                log.info("{}", summary);
+            }
+        } catch (Exception e) {
+            log.error("Unable to emit report summary", e);
+        }
+    }
+
     /**
      * Processes incoming packets.
      */
     private class InternalPacketProcessor implements PacketProcessor {
+        private final ReportPipeline pipeline;
+        private final IntUnaryOperator sliceOf;
+
+        /**
+         * Creates a processor feeding the given pipeline.
+         *
+         * @param pipeline pipeline fed with decoded reports
+         * @param sliceOf maps a reported slice meter index to its slice id,
+         *                or to a negative value if the index is unallocated
+         */
+        InternalPacketProcessor(ReportPipeline pipeline, IntUnaryOperator sliceOf) {
+            this.pipeline = pipeline;
+            this.sliceOf = sliceOf;
+        }
+
         @Override
         public void process(PacketContext context) {
+            long receivedNanos = System.nanoTime();
             Ethernet eth = context.inPacket().parsed();
-            if (eth.getEtherType() == CHECKER_REPORT_ETH_TYPE) {
-                log.info("Packet received from checker on device {}!", context.inPacket().receivedFrom());
-                context.block();
+            if (eth == null || eth.getEtherType() != CHECKER_REPORT_ETH_TYPE) {
+                return;
+            }
+            context.block();
+
+            CheckerReport report;
+            try {
+                report = CheckerReport.decode(context.inPacket().receivedFrom().deviceId(), eth, System.currentTimeMillis());
+            } catch (IllegalArgumentException e) {
+                log.warn("Malformed checker report on device {}: {}", context.inPacket().receivedFrom(), e.getMessage());
+                pipeline.getStats().recordDrop();
+                return;
+            }
+            int sliceId = sliceOf.applyAsInt(report.getSliceId());
+            if (sliceId < 0) {
+                // Stale or unprogrammed index, it would only pollute the per-slice keys downstream
+                unmappedReports.increment();
+                pipeline.getStats().recordDrop();
+                log.debug("Dropping checker report with unallocated slice index: {}", report);
+                return;
+            }
+            report = report.withSliceId(sliceId);
+            if (pipeline.getStats().isEnabled()) {
+                pipeline.getStats().lap(ReportPipelineStats.Stage.DECODE, receivedNanos);
+            }
+            pipeline.offer(report, receivedNanos);
+        }
+    }
+
+    /**
+     * Drops the traffic of the failing port through the fabric ACL on
+     * isolation violations and tightens the slice meter on QoS violations.
+     * The ACL cannot tell slices apart and the slice meter is shared by all
+     * ports of the slice on a device, so both are reference counted: a port
+     * is only released once the last isolation mitigation on it expires,
+     * and a slice meter once the last QoS mitigation of the slice on that
+     * device expires.
+     */
+    private class InternalMitigationActuator implements MitigationEngine.Actuator {
+        private final Map<DeviceId, Multiset<Integer>> throttledSlices = new HashMap<>();
+        private final Map<DeviceId, Multiset<PortNumber>> droppedPorts = new HashMap<>();
+
+        @Override
+        public boolean install(Mitigation mitigation) {
+            CheckerReport report = mitigation.getReport();
+            DeviceId deviceId = report.getDeviceId();
+            if (!deviceRegistry.contains(deviceId)) {
+                log.warn("Not mitigating on non-TPC device {}", deviceId);
+                return false;
+            }
+            if (report.getCheckType() == CheckType.QOS) {
+                Long pir = sliceQoS.get(report.getSliceId());
+                if (pir == null) {
+                    log.warn("Not mitigating QoS violation of slice {} without a slice meter", report.getSliceId());
+                    return false;
+                }
+                if (acquire(throttledSlices, deviceId, report.getSliceId())) {
+                    scheduleSliceMeter(ProgrammingScheduler.Priority.BULK, "mitigation", deviceId,
+                            report.getSliceId(), pir / MITIGATION_QOS_PIR_DIVISOR);
+                }
+            } else if (acquire(droppedPorts, deviceId, report.getPortNumber())) {
+                scheduleFlowRule(ProgrammingScheduler.Priority.BULK, "mitigation", mitigationKey(report),
+                        mitigationDropRule(deviceId, report.getPortNumber()), true);
+            }
+            publishMitigation(TPCEvent.Type.MITIGATION_INSTALLED, mitigation);
+            return true;
+        }
+
+        @Override
+        public void remove(Mitigation mitigation) {
+            CheckerReport report = mitigation.getReport();
+            DeviceId deviceId = report.getDeviceId();
+            if (report.getCheckType() == CheckType.QOS) {
+                boolean last = release(throttledSlices, deviceId, report.getSliceId());
+                Long pir = sliceQoS.get(report.getSliceId());
+                if (last && pir != null && deviceRegistry.contains(deviceId)) {
+                    scheduleSliceMeter(ProgrammingScheduler.Priority.BULK, "mitigation", deviceId,
+                            report.getSliceId(), pir);
+                }
+            } else if (release(droppedPorts, deviceId, report.getPortNumber()) && deviceRegistry.contains(deviceId)) {
+                scheduleFlowRule(ProgrammingScheduler.Priority.BULK, "mitigation", mitigationKey(report),
+                        mitigationDropRule(deviceId, report.getPortNumber()), false);
+            }
+            publishMitigation(TPCEvent.Type.MITIGATION_REMOVED, mitigation);
+        }
+
+        /**
+         * Counts one more user of the element.
+         *
+         * @return true if it is the first one
+         */
+        private synchronized <T> boolean acquire(Map<DeviceId, Multiset<T>> users, DeviceId deviceId, T element) {
+            Multiset<T> elements = users.computeIfAbsent(deviceId, k -> HashMultiset.create());
+            return elements.add(element) && elements.count(element) == 1;
+        }
+
+        /**
+         * Counts one user of the element less.
+         *
+         * @return true if it was the last one
+         */
+        private synchronized <T> boolean release(Map<DeviceId, Multiset<T>> users, DeviceId deviceId, T element) {
+            Multiset<T> elements = users.get(deviceId);
+            boolean last = elements != null && elements.remove(element) && !elements.contains(element);
+            if (elements != null && elements.isEmpty()) {
+                users.remove(deviceId);
+            }
+            return last;
+        }
+
+        private String mitigationKey(CheckerReport report) {
+            return "mitigation/" + report.getPortNumber().toLong();
+        }
+
+        /**
+         * Forgets all throttled slices and dropped ports, e.g. after the
+         * meters and rules have been purged.
+         */
+        synchronized void clear() {
+            throttledSlices.clear();
+            droppedPorts.clear();
+        }
+
+        private void publishMitigation(TPCEvent.Type type, Mitigation mitigation) {
+            if (eventBroker.hasSubscribers()) {
+                ObjectNode data = reportToJson(mitigation.getReport());
+                data.put("expiresAt", mitigation.getExpiresAt());
+                publishEvent(type, data);
             }
         }
     }
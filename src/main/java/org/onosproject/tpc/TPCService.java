@@ -1,10 +1,25 @@
 package org.onosproject.tpc;
 
+import org.onosproject.net.DeviceId;
+import org.onosproject.tpc.common.CheckType;
 import org.onosproject.tpc.common.CheckerSliceIdEntry;
 import org.onosproject.tpc.common.ExfiltrationAttackEntry;
 import org.onosproject.tpc.common.SliceQoSEntry;
+import org.onosproject.tpc.event.EventBroker;
+import org.onosproject.tpc.journal.ReportJournal;
+import org.onosproject.tpc.load.LoadConfig;
+import org.onosproject.tpc.load.LoadRun;
+import org.onosproject.tpc.mitigation.MitigationEngine;
+import org.onosproject.tpc.profile.ConfigProfile;
+import org.onosproject.tpc.program.ProgrammingScheduler;
+import org.onosproject.tpc.report.ReportCorrelator;
+import org.onosproject.tpc.report.ReportSuppressor;
+import org.onosproject.tpc.verify.Finding;
+import org.onosproject.tpc.verify.IsolationVerifier;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface TPCService {
     void postExfiltrationAttackEntries(List<ExfiltrationAttackEntry> attackEntries);
@@ -18,4 +33,186 @@ public interface TPCService {
     void turnOnChecking();
 
     void turnOffChecking();
+
+    /**
+     * Enables the given check types on the given devices. An empty device
+     * set means all available devices. Only devices whose effective state
+     * changes are programmed.
+     *
+     * @param deviceIds devices to enable checking on
+     * @param checkTypes check types to enable
+     */
+    void enableChecking(Set<DeviceId> deviceIds, Set<CheckType> checkTypes);
+
+    /**
+     * Disables the given check types on the given devices. An empty device
+     * set means all devices that currently have checking enabled.
+     *
+     * @param deviceIds devices to disable checking on
+     * @param checkTypes check types to disable
+     */
+    void disableChecking(Set<DeviceId> deviceIds, Set<CheckType> checkTypes);
+
+    /**
+     * Returns the check types currently enabled on each device.
+     *
+     * @return map from device to enabled check types
+     */
+    Map<DeviceId, Set<CheckType>> getCheckingState();
+
+    /**
+     * Returns the summary of the last closed report window, or null if no
+     * window has closed yet.
+     *
+     * @return report summary
+     */
+    ReportSuppressor.Summary getReportSummary();
+
+    /**
+     * Returns a snapshot of the report correlation counters.
+     *
+     * @return correlation statistics
+     */
+    ReportCorrelator.Stats getCorrelationStats();
+
+    /**
+     * Returns the number of checker reports dropped because their slice
+     * index is not allocated to any slice.
+     *
+     * @return dropped reports
+     */
+    long getUnmappedReports();
+
+    /**
+     * Checks slice id entries against the isolation model without
+     * programming them.
+     *
+     * @param checkerSliceIdEntries entries to check
+     * @return conflicts, leaks and partitions the entries would introduce
+     */
+    List<Finding> verifyCheckerSliceIdEntries(List<CheckerSliceIdEntry> checkerSliceIdEntries);
+
+    /**
+     * Returns a snapshot of the isolation model: flagged ports and slices,
+     * and how many incidents it classified as expected or anomalous.
+     *
+     * @return isolation state
+     */
+    IsolationVerifier.State getIsolationState();
+
+    /**
+     * Validates and stores a configuration profile, replacing any profile
+     * with the same name. Profiles whose slice ids have blocking findings
+     * are not stored.
+     *
+     * @param profile configuration profile
+     * @return findings for the profile's slice ids
+     */
+    List<Finding> putProfile(ConfigProfile profile);
+
+    /**
+     * Removes a stored profile.
+     *
+     * @param name profile name
+     * @throws IllegalStateException if the profile is active
+     */
+    void removeProfile(String name);
+
+    Map<String, ConfigProfile> getProfiles();
+
+    /**
+     * Returns the name of the active profile, or null if none is active.
+     *
+     * @return active profile name
+     */
+    String getActiveProfile();
+
+    /**
+     * Makes a stored profile the complete configuration of the fabric,
+     * programming only the per-device rule and meter delta. Returns once
+     * the new entries are programmed; the entries the profile drops are
+     * removed afterwards. If the new entries fail, the previous
+     * configuration is restored and the active profile is unchanged.
+     *
+     * @param name profile name
+     * @throws IllegalArgumentException if there is no such profile
+     * @throws IllegalStateException if the profile has blocking findings
+     *         against the current topology or could not be programmed
+     */
+    void activateProfile(String name);
+
+    /**
+     * Enables or disables automatic mitigation of repeated violations.
+     * Disabling removes all active mitigations.
+     *
+     * @param enabled true to enable mitigation
+     */
+    void setMitigationEnabled(boolean enabled);
+
+    /**
+     * Returns a snapshot of the mitigation counters, latency and active
+     * mitigations.
+     *
+     * @return mitigation statistics
+     */
+    MitigationEngine.Stats getMitigationStats();
+
+    /**
+     * Returns a snapshot of the report journal directory and counters.
+     *
+     * @return journal statistics
+     */
+    ReportJournal.Stats getJournalStats();
+
+    /**
+     * Replays the report journal through the report pipeline in the
+     * background.
+     *
+     * @param speed replay speed relative to the original pace, 0 for as fast as possible
+     */
+    void replayJournal(double speed);
+
+    /**
+     * Subscribes to violation, mitigation and programming events.
+     *
+     * @param capacity events buffered for the subscriber before dropping
+     * @return subscription, to be closed by the caller
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    EventBroker.Subscription subscribeEvents(int capacity);
+
+    /**
+     * Returns a snapshot of the programming counters and of the queued and
+     * in-flight operations per device.
+     *
+     * @return programming statistics
+     */
+    ProgrammingScheduler.Stats getProgrammingStats();
+
+    /**
+     * Returns the available devices whose pipeconf implements every table
+     * and meter the app programs; only these devices are programmed.
+     *
+     * @return TPC-capable device ids
+     */
+    Set<DeviceId> getTpcDevices();
+
+    /**
+     * Starts injecting synthetic checker reports into a report pipeline of
+     * its own, isolated from live reports, incidents and mitigations. The
+     * run proceeds in the background; poll {@link #getLoadTest()} for its
+     * result.
+     *
+     * @param config load run parameters
+     * @return the started run
+     * @throws IllegalStateException if a load run is already in progress
+     */
+    LoadRun startLoadTest(LoadConfig config);
+
+    /**
+     * Returns the running or last finished load run.
+     *
+     * @return load run, or null if none was started
+     */
+    LoadRun getLoadTest();
 }
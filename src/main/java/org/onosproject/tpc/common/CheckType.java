@@ -0,0 +1,64 @@
+package org.onosproject.tpc.common;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public enum CheckType {
+    ISO("FabricEgress.checker_control.tb_should_check_iso", "FabricEgress.checker_control.check_iso"),
+    QOS("FabricEgress.checker_control.tb_should_check_qos", "FabricEgress.checker_control.check_qos");
+
+    private final String tableId;
+    private final String actionId;
+
+    CheckType(String tableId, String actionId) {
+        this.tableId = tableId;
+        this.actionId = actionId;
+    }
+
+    public String getTableId() { return this.tableId; }
+
+    public String getActionId() { return this.actionId; }
+
+    /**
+     * Parses a check type from its REST name, e.g. "iso" or "qos".
+     *
+     * @param name check type name, case insensitive
+     * @return check type
+     * @throws IllegalArgumentException if the name is not a check type
+     */
+    public static CheckType fromString(String name) {
+        for (CheckType checkType: values()) {
+            if (checkType.name().equalsIgnoreCase(name.trim())) {
+                return checkType;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "Unknown check type '%s', valid check types are %s", name, validNames()));
+    }
+
+    /**
+     * Parses check types from their REST names. No names means all check
+     * types.
+     *
+     * @param names check type names, case insensitive
+     * @return check types
+     * @throws IllegalArgumentException if a name is not a check type
+     */
+    public static Set<CheckType> fromStrings(Iterable<String> names) {
+        Set<CheckType> checkTypes = EnumSet.noneOf(CheckType.class);
+        for (String name: names) {
+            checkTypes.add(fromString(name));
+        }
+        return checkTypes.isEmpty() ? EnumSet.allOf(CheckType.class) : checkTypes;
+    }
+
+    private static List<String> validNames() {
+        List<String> names = new ArrayList<>();
+        for (CheckType checkType: values()) {
+            names.add(checkType.name().toLowerCase());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,158 @@
+package org.onosproject.tpc.common;
+
+import com.google.common.hash.Hashing;
+import org.onlab.packet.Ethernet;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Report punted by a checker. The report header directly follows the
+ * Ethernet header (ethType 0x5678), in network byte order:
+ * <pre>
+ *   offset 0: report type : 8 bits  (0 = isolation, 1 = QoS)
+ *   offset 1: reserved    : 8 bits  (0)
+ *   offset 2: slice       : 16 bits (slice_meter index of the offending packet)
+ *   offset 4: port        : 16 bits (egress port that failed the check)
+ * </pre>
+ * This is the header the checker control block prepends to the clone it
+ * punts; {@link #encode} and {@link #decode} are the only places that
+ * know the layout. Decoded reports carry the meter index as slice id; use
+ * {@link #withSliceId(int)} to translate it to the external slice id.
+ */
+public class CheckerReport {
+    public static final int HEADER_LENGTH = 6;
+
+    private static final int TYPE_ISO = 0;
+    private static final int TYPE_QOS = 1;
+
+    private final DeviceId deviceId;
+    private final PortNumber portNumber;
+    private final int sliceId;
+    private final CheckType checkType;
+    private final long timestamp;
+    private final long key;
+
+    public CheckerReport(DeviceId deviceId, PortNumber portNumber, int sliceId, CheckType checkType, long timestamp)
+    {
+        this.deviceId = deviceId;
+        this.portNumber = portNumber;
+        this.sliceId = sliceId;
+        this.checkType = checkType;
+        this.timestamp = timestamp;
+        // Computed once here, reports are shared between the packet and report threads
+        this.key = Hashing.murmur3_128().newHasher()
+                .putString(deviceId.toString(), StandardCharsets.UTF_8)
+                .putLong(portNumber.toLong())
+                .putInt(sliceId)
+                .putInt(checkType.ordinal())
+                .hash().asLong();
+    }
+
+    /**
+     * Decodes a checker report from a punted frame.
+     *
+     * @param deviceId device the report was punted from
+     * @param eth parsed frame
+     * @param timestamp time the report was received, in milliseconds
+     * @return decoded report
+     * @throws IllegalArgumentException if the frame is not a valid report
+     */
+    public static CheckerReport decode(DeviceId deviceId, Ethernet eth, long timestamp) {
+        if (eth.getPayload() == null) {
+            throw new IllegalArgumentException("Checker report without payload");
+        }
+        return decode(deviceId, eth.getPayload().serialize(), timestamp);
+    }
+
+    /**
+     * Decodes a checker report from the payload of a punted frame.
+     *
+     * @param deviceId device the report was punted from
+     * @param payload bytes following the Ethernet header
+     * @param timestamp time the report was received, in milliseconds
+     * @return decoded report
+     * @throws IllegalArgumentException if the payload is not a valid report
+     */
+    public static CheckerReport decode(DeviceId deviceId, byte[] payload, long timestamp) {
+        if (payload.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Checker report too short: " + payload.length + " bytes");
+        }
+
+        ByteBuffer bb = ByteBuffer.wrap(payload);
+        CheckType checkType = checkTypeOf(bb.get());
+        bb.get();
+        int sliceId = bb.getShort() & 0xFFFF;
+        PortNumber portNumber = PortNumber.portNumber(bb.getShort() & 0xFFFF);
+
+        return new CheckerReport(deviceId, portNumber, sliceId, checkType, timestamp);
+    }
+
+    /**
+     * Encodes a report header, as the checker would punt it.
+     *
+     * @param checkType check that failed
+     * @param sliceIndex slice_meter index of the offending packet
+     * @param port egress port that failed the check
+     * @return header bytes
+     */
+    public static byte[] encode(CheckType checkType, int sliceIndex, int port) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .put((byte) (checkType == CheckType.ISO ? TYPE_ISO : TYPE_QOS))
+                .put((byte) 0)
+                .putShort((short) sliceIndex)
+                .putShort((short) port)
+                .array();
+    }
+
+    private static CheckType checkTypeOf(byte value) {
+        switch (value) {
+            case TYPE_ISO:
+                return CheckType.ISO;
+            case TYPE_QOS:
+                return CheckType.QOS;
+            default:
+                throw new IllegalArgumentException("Unknown checker report type: " + value);
+        }
+    }
+
+    /**
+     * Returns a copy of this report with a different slice id.
+     *
+     * @param sliceId slice id
+     * @return new report
+     */
+    public CheckerReport withSliceId(int sliceId) {
+        return new CheckerReport(deviceId, portNumber, sliceId, checkType, timestamp);
+    }
+
+    public DeviceId getDeviceId() { return this.deviceId; }
+
+    public PortNumber getPortNumber() { return this.portNumber; }
+
+    public int getSliceId() { return this.sliceId; }
+
+    public CheckType getCheckType() { return this.checkType; }
+
+    public long getTimestamp() { return this.timestamp; }
+
+    /**
+     * Returns a 64-bit hash of the (device, port, slice, check type) tuple
+     * of this report. Isolation and QoS violations of the same port and
+     * slice are distinct keys, so they are counted and mitigated apart.
+     *
+     * @return report key
+     */
+    public long key() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CheckerReport: deviceId=%s, portNumber=%s, sliceId=%s, checkType=%s",
+                deviceId, portNumber, sliceId, checkType);
+    }
+}
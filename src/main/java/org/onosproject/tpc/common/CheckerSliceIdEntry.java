@@ -2,13 +2,18 @@ package org.onosproject.tpc.common;
 
 import org.onosproject.net.PortNumber;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onosproject.tpc.AppConstants.MAX_SLICE_ID;
+
 public class CheckerSliceIdEntry {
     private String deviceId;
     private PortNumber portNumber;
-    private Byte sliceId;
+    private int sliceId;
 
-    public CheckerSliceIdEntry(String deviceId, PortNumber portNumber, Byte sliceId)
+    public CheckerSliceIdEntry(String deviceId, PortNumber portNumber, int sliceId)
     {
+        checkArgument(sliceId >= 0 && sliceId <= MAX_SLICE_ID,
+                "Slice id %s out of range [0, %s]", sliceId, MAX_SLICE_ID);
         this.deviceId = deviceId;
         this.portNumber = portNumber;
         this.sliceId = sliceId;
@@ -18,7 +23,7 @@ public class CheckerSliceIdEntry {
 
     public PortNumber getPortNumber() { return this.portNumber; }
 
-    public byte getSliceId() { return this.sliceId; }
+    public int getSliceId() { return this.sliceId; }
 
     @Override
     public String toString() {
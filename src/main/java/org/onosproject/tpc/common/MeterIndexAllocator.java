@@ -0,0 +1,144 @@
+package org.onosproject.tpc.common;
+
+import org.onosproject.net.DeviceId;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps sparse external slice ids onto the dense slice_meter index space.
+ * <p>
+ * The index is what the switches carry as the slice id, and the ingress
+ * slice of a packet is compared against egress slices on other devices, so
+ * a slice gets the same index on every device that uses it. Usage is
+ * tracked per device, and an index is freed for reuse once no device
+ * uses its slice any more. Index 0 is reserved for "no slice".
+ */
+public class MeterIndexAllocator {
+    private final int capacity;
+    private final BitSet used = new BitSet();
+    private final Map<Integer, Integer> sliceToIndex = new HashMap<>();
+    private final Map<Integer, Integer> indexToSlice = new HashMap<>();
+    private final Map<Integer, Set<DeviceId>> users = new HashMap<>();
+
+    public MeterIndexAllocator(int capacity) {
+        this.capacity = capacity;
+        used.set(0);
+    }
+
+    /**
+     * Marks the slice as used on the device and returns its index,
+     * allocating one if needed.
+     *
+     * @param deviceId device using the slice
+     * @param sliceId external slice id
+     * @return dense meter index
+     * @throws IllegalStateException if all indexes are in use
+     */
+    public synchronized int acquire(DeviceId deviceId, int sliceId) {
+        Integer index = sliceToIndex.get(sliceId);
+        if (index == null) {
+            index = used.nextClearBit(1);
+            if (index >= capacity) {
+                throw new IllegalStateException("No free slice meter index for slice " + sliceId);
+            }
+            used.set(index);
+            sliceToIndex.put(sliceId, index);
+            indexToSlice.put(index, sliceId);
+        }
+        users.computeIfAbsent(sliceId, k -> new HashSet<>()).add(deviceId);
+        return index;
+    }
+
+    /**
+     * Marks the slice as used on all given devices and returns its index,
+     * allocating one if needed. Either all devices are marked or none is.
+     *
+     * @param deviceIds devices using the slice
+     * @param sliceId external slice id
+     * @return dense meter index
+     * @throws IllegalStateException if all indexes are in use
+     */
+    public synchronized int acquire(Collection<DeviceId> deviceIds, int sliceId) {
+        if (deviceIds.isEmpty()) {
+            return indexOf(sliceId);
+        }
+        int index = -1;
+        for (DeviceId deviceId: deviceIds) {
+            // Only the first call can allocate, and so fail
+            index = acquire(deviceId, sliceId);
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether every given slice either has an index or can get one
+     * from the free indexes, so that acquiring them all cannot fail.
+     *
+     * @param sliceIds external slice ids
+     * @return true if all slices can be given an index
+     */
+    public synchronized boolean canAcquire(Collection<Integer> sliceIds) {
+        long missing = sliceIds.stream().distinct().filter(sliceId -> !sliceToIndex.containsKey(sliceId)).count();
+        return missing <= capacity - used.cardinality();
+    }
+
+    /**
+     * Marks the slice as no longer used on the device. Frees the index if
+     * no device uses the slice any more.
+     *
+     * @param deviceId device no longer using the slice
+     * @param sliceId external slice id
+     */
+    public synchronized void release(DeviceId deviceId, int sliceId) {
+        Set<DeviceId> sliceUsers = users.get(sliceId);
+        if (sliceUsers == null || !sliceUsers.remove(deviceId) || !sliceUsers.isEmpty()) {
+            return;
+        }
+        users.remove(sliceId);
+        Integer index = sliceToIndex.remove(sliceId);
+        indexToSlice.remove(index);
+        used.clear(index);
+    }
+
+    /**
+     * Returns the index of the slice, or -1 if it has none.
+     *
+     * @param sliceId external slice id
+     * @return dense meter index
+     */
+    public synchronized int indexOf(int sliceId) {
+        return sliceToIndex.getOrDefault(sliceId, -1);
+    }
+
+    /**
+     * Returns the external slice id of an index, or -1 if it is not allocated.
+     *
+     * @param index dense meter index
+     * @return external slice id
+     */
+    public synchronized int sliceOf(int index) {
+        return indexToSlice.getOrDefault(index, -1);
+    }
+
+    public synchronized boolean isUsedOn(DeviceId deviceId, int sliceId) {
+        Set<DeviceId> sliceUsers = users.get(sliceId);
+        return sliceUsers != null && sliceUsers.contains(deviceId);
+    }
+
+    public synchronized int size() {
+        return sliceToIndex.size();
+    }
+
+    public synchronized void clear() {
+        used.clear();
+        used.set(0);
+        sliceToIndex.clear();
+        indexToSlice.clear();
+        users.clear();
+    }
+}
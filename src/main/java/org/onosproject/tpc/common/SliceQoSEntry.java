@@ -1,16 +1,22 @@
 package org.onosproject.tpc.common;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onosproject.tpc.AppConstants.MAX_SLICE_ID;
+
 public class SliceQoSEntry {
-    private byte sliceId;
+    private int sliceId;
     private long pir;
 
-    public SliceQoSEntry(byte sliceId, long pir)
+    public SliceQoSEntry(int sliceId, long pir)
     {
+        checkArgument(sliceId >= 0 && sliceId <= MAX_SLICE_ID,
+                "Slice id %s out of range [0, %s]", sliceId, MAX_SLICE_ID);
+        checkArgument(pir >= 0, "Negative pir %s", pir);
         this.sliceId = sliceId;
         this.pir = pir;
     }
 
-    public byte getSliceId() { return this.sliceId; }
+    public int getSliceId() { return this.sliceId; }
 
     public long getPir() { return this.pir; }
 
@@ -0,0 +1,187 @@
+package org.onosproject.tpc.device;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.pi.model.PiMeterId;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipelineModel;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.service.PiPipeconfEvent;
+import org.onosproject.net.pi.service.PiPipeconfListener;
+import org.onosproject.net.pi.service.PiPipeconfService;
+import org.onosproject.tpc.common.CheckType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cached set of available devices whose pipeconf implements every table
+ * and meter the app programs. Maintained from device and pipeconf events,
+ * so programming paths never have to scan devices or program tables that
+ * a device does not have.
+ */
+public class TPCDeviceRegistry {
+    private static final Logger log = LoggerFactory.getLogger(TPCDeviceRegistry.class);
+
+    private static final Set<PiTableId> REQUIRED_TABLES = requiredTables();
+    private static final PiMeterId SLICE_METER_ID = PiMeterId.of("FabricEgress.checker_control.slice_meter");
+
+    /**
+     * Notified when a device leaves the registry.
+     */
+    public interface RemovalListener {
+        /**
+         * Called after the device became unavailable or lost its checker
+         * tables. State kept for the device no longer matches the device
+         * if it comes back.
+         *
+         * @param deviceId removed device
+         */
+        void deviceRemoved(DeviceId deviceId);
+    }
+
+    private final DeviceService deviceService;
+    private final PiPipeconfService pipeconfService;
+    private final Set<DeviceId> devices = Sets.newConcurrentHashSet();
+    private volatile Set<DeviceId> snapshot = ImmutableSet.of();
+
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final PiPipeconfListener pipeconfListener = new InternalPipeconfListener();
+    private volatile RemovalListener removalListener = deviceId -> { };
+
+    public TPCDeviceRegistry(DeviceService deviceService, PiPipeconfService pipeconfService) {
+        this.deviceService = deviceService;
+        this.pipeconfService = pipeconfService;
+    }
+
+    public void setRemovalListener(RemovalListener removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    public void activate() {
+        deviceService.addListener(deviceListener);
+        pipeconfService.addListener(pipeconfListener);
+        refresh();
+    }
+
+    public void deactivate() {
+        pipeconfService.removeListener(pipeconfListener);
+        deviceService.removeListener(deviceListener);
+        synchronized (this) {
+            devices.clear();
+            snapshot = ImmutableSet.of();
+        }
+    }
+
+    /**
+     * Returns the TPC-capable devices.
+     *
+     * @return immutable set of device ids
+     */
+    public Set<DeviceId> devices() {
+        return snapshot;
+    }
+
+    public boolean contains(DeviceId deviceId) {
+        return devices.contains(deviceId);
+    }
+
+    private void refresh() {
+        for (Device device: deviceService.getDevices()) {
+            update(device.id());
+        }
+    }
+
+    /**
+     * Re-evaluates a device. Synchronized so that concurrent device and
+     * pipeconf events cannot publish a stale snapshot.
+     */
+    private void update(DeviceId deviceId) {
+        boolean removed = false;
+        synchronized (this) {
+            if (deviceService.isAvailable(deviceId) && isTpcCapable(deviceId)) {
+                if (devices.add(deviceId)) {
+                    log.info("Device {} is TPC-capable", deviceId);
+                    snapshot = ImmutableSet.copyOf(devices);
+                }
+            } else if (devices.remove(deviceId)) {
+                log.info("Device {} is no longer TPC-capable", deviceId);
+                snapshot = ImmutableSet.copyOf(devices);
+                removed = true;
+            }
+        }
+        if (removed) {
+            removalListener.deviceRemoved(deviceId);
+        }
+    }
+
+    private boolean isTpcCapable(DeviceId deviceId) {
+        Optional<PiPipeconf> pipeconf = pipeconfService.ofDevice(deviceId)
+                .flatMap(pipeconfService::getPipeconf);
+        if (!pipeconf.isPresent()) {
+            return false;
+        }
+        PiPipelineModel model = pipeconf.get().pipelineModel();
+        for (PiTableId tableId: REQUIRED_TABLES) {
+            if (!model.table(tableId).isPresent()) {
+                log.debug("Pipeconf of {} has no table {}", deviceId, tableId);
+                return false;
+            }
+        }
+        if (!model.meter(SLICE_METER_ID).isPresent()) {
+            log.debug("Pipeconf of {} has no meter {}", deviceId, SLICE_METER_ID);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the tables the app programs: checker, slice lookup, hop,
+     * attack and ACL tables.
+     */
+    private static Set<PiTableId> requiredTables() {
+        ImmutableSet.Builder<PiTableId> tables = ImmutableSet.builder();
+        for (CheckType checkType: CheckType.values()) {
+            tables.add(PiTableId.of(checkType.getTableId()));
+        }
+        return tables
+                .add(PiTableId.of("FabricIngress.init_control.tb_lookup_static_slices"))
+                .add(PiTableId.of("FabricEgress.checker_control.tb_lookup_static_slices"))
+                .add(PiTableId.of("FabricIngress.init_control.tb_check_first_hop"))
+                .add(PiTableId.of("FabricEgress.checker_control.tb_check_last_hop"))
+                .add(PiTableId.of("FabricIngress.attack_ingress.attack"))
+                .add(PiTableId.of("FabricIngress.acl.acl"))
+                .build();
+    }
+
+    private class InternalDeviceListener implements DeviceListener {
+        @Override
+        public void event(DeviceEvent event) {
+            switch (event.type()) {
+                case DEVICE_ADDED:
+                case DEVICE_UPDATED:
+                case DEVICE_AVAILABILITY_CHANGED:
+                case DEVICE_REMOVED:
+                case DEVICE_SUSPENDED:
+                    update(event.subject().id());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private class InternalPipeconfListener implements PiPipeconfListener {
+        @Override
+        public void event(PiPipeconfEvent event) {
+            refresh();
+        }
+    }
+}
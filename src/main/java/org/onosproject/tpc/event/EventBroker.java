@@ -0,0 +1,92 @@
+package org.onosproject.tpc.event;
+
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of events to stream subscribers. Each subscriber has its own
+ * bounded buffer; publishing never blocks, and events that do not fit in a
+ * slow subscriber's buffer are dropped and counted for that subscriber.
+ */
+public class EventBroker {
+    private final Semaphore slots;
+    private final Set<Subscription> subscriptions = Sets.newConcurrentHashSet();
+
+    public EventBroker(int maxSubscribers) {
+        this.slots = new Semaphore(maxSubscribers);
+    }
+
+    public void publish(TPCEvent event) {
+        for (Subscription subscription: subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Registers a new subscriber.
+     *
+     * @param capacity size of the subscriber's buffer
+     * @return the subscription
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    public Subscription subscribe(int capacity) {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("Too many event stream subscribers");
+        }
+        Subscription subscription = new Subscription(capacity);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final BlockingQueue<TPCEvent> buffer;
+        private final AtomicLong dropped = new AtomicLong();
+
+        Subscription(int capacity) {
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void offer(TPCEvent event) {
+            if (!buffer.offer(event)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        /**
+         * Waits for the next event.
+         *
+         * @param timeout how long to wait
+         * @param unit unit of the timeout
+         * @return next event, or null on timeout
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public TPCEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return buffer.poll(timeout, unit);
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        @Override
+        public void close() {
+            if (subscriptions.remove(this)) {
+                slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.onosproject.tpc.event;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Event pushed to stream subscribers.
+ */
+public class TPCEvent {
+    public enum Type {
+        VIOLATION,
+        INCIDENT,
+        MITIGATION_INSTALLED,
+        MITIGATION_REMOVED,
+        PROGRAMMING
+    }
+
+    private final Type type;
+    private final long timestamp;
+    private final ObjectNode data;
+
+    public TPCEvent(Type type, long timestamp, ObjectNode data)
+    {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.data = data;
+    }
+
+    public Type getType() { return this.type; }
+
+    public long getTimestamp() { return this.timestamp; }
+
+    public ObjectNode getData() { return this.data; }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "TPCEvent: type=%s, timestamp=%s, data=%s",
+                type, timestamp, data);
+    }
+}
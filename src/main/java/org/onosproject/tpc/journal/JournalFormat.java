@@ -0,0 +1,103 @@
+package org.onosproject.tpc.journal;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * On-disk layout of the report journal. Each segment starts with a 16-byte
+ * header followed by fixed-width 64-byte records:
+ * <pre>
+ *   header : magic (4) | version (4) | record size (4) | reserved (4)
+ *   record : timestamp ms (8) | port (8) | slice id (4) | check type (1) |
+ *            device id length (1) | reserved (2) | device id ASCII (40)
+ * </pre>
+ * Segments are zero-filled when created, so a record with a zero
+ * timestamp marks the end of the written data. The timestamp is written
+ * last, after a release fence, and read first, before an acquire fence,
+ * so a reader that sees a timestamp also sees the rest of the record.
+ */
+final class JournalFormat {
+    static final int MAGIC = 0x54504A31; // "TPJ1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 64;
+    static final int MAX_DEVICE_ID_LENGTH = 40;
+    static final String SEGMENT_PREFIX = "reports-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+    }
+
+    static boolean checkHeader(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_SIZE
+                && buffer.getInt(0) == MAGIC
+                && buffer.getInt(4) == VERSION
+                && buffer.getInt(8) == RECORD_SIZE;
+    }
+
+    /**
+     * Writes a report at the given absolute offset without moving the
+     * buffer position.
+     */
+    static void writeRecord(ByteBuffer buffer, int offset, CheckerReport report) {
+        byte[] deviceId = report.getDeviceId().toString().getBytes(StandardCharsets.US_ASCII);
+        int length = Math.min(deviceId.length, MAX_DEVICE_ID_LENGTH);
+
+        buffer.putLong(offset + 8, report.getPortNumber().toLong());
+        buffer.putInt(offset + 16, report.getSliceId());
+        buffer.put(offset + 20, (byte) report.getCheckType().ordinal());
+        buffer.put(offset + 21, (byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset + 24 + i, deviceId[i]);
+        }
+        VarHandle.releaseFence();
+        buffer.putLong(offset, report.getTimestamp());
+    }
+
+    /**
+     * Reads the report at the given absolute offset.
+     *
+     * @return the report, or null if the slot has not been written
+     * @throws IllegalArgumentException if the record is corrupt
+     */
+    static CheckerReport readRecord(ByteBuffer buffer, int offset) {
+        long timestamp = buffer.getLong(offset);
+        if (timestamp == 0) {
+            return null;
+        }
+        VarHandle.acquireFence();
+        long port = buffer.getLong(offset + 8);
+        int sliceId = buffer.getInt(offset + 16);
+        int type = buffer.get(offset + 20) & 0xFF;
+        int length = buffer.get(offset + 21) & 0xFF;
+        if (type >= CheckType.values().length || length > MAX_DEVICE_ID_LENGTH) {
+            throw new IllegalArgumentException(String.format(
+                    "Corrupt journal record at offset %s: check type %s, device id length %s",
+                    offset, type, length));
+        }
+        CheckType checkType = CheckType.values()[type];
+        byte[] deviceId = new byte[length];
+        for (int i = 0; i < length; i++) {
+            deviceId[i] = buffer.get(offset + 24 + i);
+        }
+
+        return new CheckerReport(DeviceId.deviceId(new String(deviceId, StandardCharsets.US_ASCII)),
+                PortNumber.portNumber(port), sliceId, checkType, timestamp);
+    }
+}
@@ -0,0 +1,219 @@
+package org.onosproject.tpc.journal;
+
+import org.onosproject.tpc.common.CheckerReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of checker reports in rotating memory-mapped
+ * segments. The report path only enqueues into a bounded queue and never
+ * blocks; a single writer thread encodes the reports straight into the
+ * mapped segment. Reports are dropped and counted when the queue is full.
+ */
+public class ReportJournal {
+    private static final Logger log = LoggerFactory.getLogger(ReportJournal.class);
+
+    private static final int WRITE_BATCH = 1024;
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    private final BlockingQueue<CheckerReport> queue;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Thread writer;
+    private volatile boolean running;
+
+    // Only touched by the writer thread
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+    private int segmentRecords;
+
+    public ReportJournal(Path directory, int recordsPerSegment, int maxSegments, int queueCapacity) {
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments(directory);
+        segmentSequence = segments.isEmpty() ? 0 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+
+        running = true;
+        writer = new Thread(this::writeLoop, "onos-tpc-report-journal");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Report journal started in {}", directory);
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Not interrupted: an interrupt during a channel operation closes the
+        // channel and loses the batch. The writer sees the flag within one poll.
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Report journal stopped: written={}, dropped={}", written.get(), dropped.get());
+    }
+
+    /**
+     * Queues a report for appending. Never blocks.
+     *
+     * @param report decoded report
+     * @return false if the report was dropped because the writer is behind
+     */
+    public boolean append(CheckerReport report) {
+        if (!running || !queue.offer(report)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public Path getDirectory() { return this.directory; }
+
+    public long getWritten() { return written.get(); }
+
+    public long getDropped() { return dropped.get(); }
+
+    /**
+     * Returns a snapshot of the journal directory and counters.
+     *
+     * @return journal statistics
+     */
+    public Stats stats() {
+        return new Stats(directory, written.get(), dropped.get());
+    }
+
+    public static class Stats {
+        private final Path directory;
+        private final long written;
+        private final long dropped;
+
+        Stats(Path directory, long written, long dropped) {
+            this.directory = directory;
+            this.written = written;
+            this.dropped = dropped;
+        }
+
+        public Path getDirectory() { return this.directory; }
+
+        public long getWritten() { return this.written; }
+
+        public long getDropped() { return this.dropped; }
+    }
+
+    private void writeLoop() {
+        List<CheckerReport> batch = new ArrayList<>(WRITE_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                CheckerReport first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, WRITE_BATCH - 1);
+                for (CheckerReport report: batch) {
+                    write(report);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                // Drain whatever is left after stop()
+                Thread.interrupted();
+            } catch (IOException e) {
+                log.error("Unable to write report journal, dropping {} reports", batch.size(), e);
+                dropped.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    private void write(CheckerReport report) throws IOException {
+        if (segment == null || segmentRecords == recordsPerSegment) {
+            rotate();
+        }
+        JournalFormat.writeRecord(segment,
+                JournalFormat.HEADER_SIZE + segmentRecords * JournalFormat.RECORD_SIZE, report);
+        segmentRecords++;
+        written.incrementAndGet();
+    }
+
+    private void rotate() throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+
+        Path path = directory.resolve(JournalFormat.segmentName(segmentSequence++));
+        long size = JournalFormat.HEADER_SIZE + (long) recordsPerSegment * JournalFormat.RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        JournalFormat.writeHeader(segment);
+        segmentRecords = 0;
+
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Returns the journal segments in the given directory, oldest first.
+     *
+     * @param directory journal directory
+     * @return segment paths
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(p -> p.getFileName().toString().startsWith(JournalFormat.SEGMENT_PREFIX)
+                                && p.getFileName().toString().endsWith(JournalFormat.SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(JournalFormat.SEGMENT_PREFIX.length(),
+                name.length() - JournalFormat.SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,120 @@
+package org.onosproject.tpc.journal;
+
+import org.onosproject.tpc.common.CheckerReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Replays a report journal in record order, either at the original pace
+ * (speed 1), accelerated (speed &gt; 1) or as fast as possible (speed 0).
+ * Can also be run standalone to dump a journal:
+ * <pre>
+ *   java -cp ... org.onosproject.tpc.journal.ReportJournalReplayer &lt;dir&gt; [speed]
+ * </pre>
+ */
+public class ReportJournalReplayer {
+    private static final Logger log = LoggerFactory.getLogger(ReportJournalReplayer.class);
+
+    private final Path directory;
+    private final double speed;
+    private long corrupt;
+
+    public ReportJournalReplayer(Path directory, double speed) {
+        this.directory = directory;
+        this.speed = speed;
+    }
+
+    /**
+     * Feeds every journaled report to the consumer.
+     *
+     * @param consumer report consumer
+     * @return number of reports replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public long replay(Consumer<CheckerReport> consumer) throws IOException {
+        long replayed = 0;
+        corrupt = 0;
+        long firstTimestamp = -1;
+        long startNanos = System.nanoTime();
+
+        for (Path path: ReportJournal.listSegments(directory)) {
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (!JournalFormat.checkHeader(segment)) {
+                log.warn("Skipping journal segment with bad header: {}", path);
+                continue;
+            }
+
+            for (int offset = JournalFormat.HEADER_SIZE;
+                 offset + JournalFormat.RECORD_SIZE <= segment.limit();
+                 offset += JournalFormat.RECORD_SIZE) {
+                CheckerReport report;
+                try {
+                    report = JournalFormat.readRecord(segment, offset);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping record in {}: {}", path, e.getMessage());
+                    corrupt++;
+                    continue;
+                }
+                if (report == null) {
+                    break;
+                }
+                if (firstTimestamp < 0) {
+                    firstTimestamp = report.getTimestamp();
+                }
+                if (!pace(startNanos, report.getTimestamp() - firstTimestamp)) {
+                    return replayed;
+                }
+                consumer.accept(report);
+                replayed++;
+            }
+        }
+
+        return replayed;
+    }
+
+    /**
+     * Returns the number of corrupt records skipped by the last replay.
+     *
+     * @return corrupt records
+     */
+    public long getCorrupt() { return this.corrupt; }
+
+    private boolean pace(long startNanos, long offsetMillis) {
+        if (speed <= 0) {
+            return true;
+        }
+        long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / speed);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: ReportJournalReplayer <journal dir> [speed]");
+            System.exit(1);
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        long replayed = new ReportJournalReplayer(Paths.get(args[0]), speed).replay(System.out::println);
+        System.err.println("Replayed " + replayed + " reports");
+    }
+}
@@ -0,0 +1,83 @@
+package org.onosproject.tpc.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Parameters of a checker-report load run. Runs with the same config and
+ * seed offer the same report sequence.
+ */
+public class LoadConfig {
+    public enum Distribution {
+        UNIFORM,
+        ZIPF
+    }
+
+    private long rate;
+    private long duration;
+    private int threads;
+    private int deviceCount;
+    private int portsPerDevice;
+    private int sliceCount;
+    private int keyCount;
+    private Distribution distribution;
+    private double zipfExponent;
+    private long seed;
+
+    public LoadConfig(long rate, long duration, int threads, int deviceCount, int portsPerDevice, int sliceCount,
+                      int keyCount, Distribution distribution, double zipfExponent, long seed)
+    {
+        checkArgument(rate > 0, "rate must be positive");
+        checkArgument(duration > 0 && duration <= 600000, "duration must be in (0, 600000] ms");
+        checkArgument(threads > 0, "threads must be positive");
+        checkArgument(deviceCount > 0 && portsPerDevice > 0 && sliceCount > 0 && keyCount > 0,
+                "device, port, slice and key counts must be positive");
+        this.rate = rate;
+        this.duration = duration;
+        this.threads = threads;
+        this.deviceCount = deviceCount;
+        this.portsPerDevice = portsPerDevice;
+        this.sliceCount = sliceCount;
+        this.keyCount = keyCount;
+        this.distribution = distribution;
+        this.zipfExponent = zipfExponent;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the offered load, in reports per second over all threads.
+     */
+    public long getRate() { return this.rate; }
+
+    /**
+     * Returns the run duration, in milliseconds.
+     */
+    public long getDuration() { return this.duration; }
+
+    public int getThreads() { return this.threads; }
+
+    public int getDeviceCount() { return this.deviceCount; }
+
+    public int getPortsPerDevice() { return this.portsPerDevice; }
+
+    public int getSliceCount() { return this.sliceCount; }
+
+    /**
+     * Returns the number of distinct (device, port, slice) keys drawn from.
+     */
+    public int getKeyCount() { return this.keyCount; }
+
+    public Distribution getDistribution() { return this.distribution; }
+
+    public double getZipfExponent() { return this.zipfExponent; }
+
+    public long getSeed() { return this.seed; }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "LoadConfig: rate=%s, duration=%s, threads=%s, devices=%s, ports=%s, slices=%s, keys=%s, " +
+                        "distribution=%s, zipfExponent=%s, seed=%s",
+                rate, duration, threads, deviceCount, portsPerDevice, sliceCount, keyCount,
+                distribution, zipfExponent, seed);
+    }
+}
@@ -0,0 +1,81 @@
+package org.onosproject.tpc.load;
+
+import org.onosproject.tpc.report.ReportPipelineStats;
+
+import java.util.Map;
+
+/**
+ * Outcome of a load run.
+ */
+public class LoadResult {
+    private final LoadConfig config;
+    private final long offered;
+    private final long handled;
+    private final long dropped;
+    private final long lagged;
+    private final long elapsed;
+    private final long allocatedBytes;
+    private final Map<ReportPipelineStats.Stage, long[]> stageLatencies;
+
+    public LoadResult(LoadConfig config, long offered, long handled, long dropped, long lagged, long elapsed,
+                      long allocatedBytes, Map<ReportPipelineStats.Stage, long[]> stageLatencies)
+    {
+        this.config = config;
+        this.offered = offered;
+        this.handled = handled;
+        this.dropped = dropped;
+        this.lagged = lagged;
+        this.elapsed = elapsed;
+        this.allocatedBytes = allocatedBytes;
+        this.stageLatencies = stageLatencies;
+    }
+
+    public LoadConfig getConfig() { return this.config; }
+
+    /**
+     * Returns the number of reports injected.
+     */
+    public long getOffered() { return this.offered; }
+
+    /**
+     * Returns the number of reports the processor claimed.
+     */
+    public long getHandled() { return this.handled; }
+
+    /**
+     * Returns the number of claimed reports the processor dropped before
+     * the pipeline, because they were malformed or carried an unallocated
+     * slice index.
+     */
+    public long getDropped() { return this.dropped; }
+
+    /**
+     * Returns the number of reports injected more than 1 ms behind schedule,
+     * i.e. load the pipeline could not absorb at the target rate.
+     */
+    public long getLagged() { return this.lagged; }
+
+    /**
+     * Returns the wall-clock duration of the run, in milliseconds.
+     */
+    public long getElapsed() { return this.elapsed; }
+
+    /**
+     * Returns the bytes allocated by the injecting threads, or -1 if the
+     * JVM does not support per-thread allocation accounting.
+     */
+    public long getAllocatedBytes() { return this.allocatedBytes; }
+
+    /**
+     * Returns {p50, p90, p99, max} in nanoseconds per pipeline stage.
+     */
+    public Map<ReportPipelineStats.Stage, long[]> getStageLatencies() { return this.stageLatencies; }
+
+    public double getThroughput() {
+        return elapsed == 0 ? 0.0 : handled * 1000.0 / elapsed;
+    }
+
+    public double getAllocationRate() {
+        return elapsed == 0 || allocatedBytes < 0 ? -1.0 : allocatedBytes * 1000.0 / elapsed;
+    }
+}
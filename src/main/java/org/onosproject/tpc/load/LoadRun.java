@@ -0,0 +1,55 @@
+package org.onosproject.tpc.load;
+
+/**
+ * State of an asynchronous load run. A run is replaced by a new instance
+ * when it finishes.
+ */
+public class LoadRun {
+    public enum State {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final LoadConfig config;
+    private final long startedAt;
+    private final State state;
+    private final LoadResult result;
+    private final String error;
+
+    private LoadRun(LoadConfig config, long startedAt, State state, LoadResult result, String error) {
+        this.config = config;
+        this.startedAt = startedAt;
+        this.state = state;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static LoadRun running(LoadConfig config) {
+        return new LoadRun(config, System.currentTimeMillis(), State.RUNNING, null, null);
+    }
+
+    public LoadRun done(LoadResult result) {
+        return new LoadRun(config, startedAt, State.DONE, result, null);
+    }
+
+    public LoadRun failed(String error) {
+        return new LoadRun(config, startedAt, State.FAILED, null, error);
+    }
+
+    public LoadConfig getConfig() { return this.config; }
+
+    public long getStartedAt() { return this.startedAt; }
+
+    public State getState() { return this.state; }
+
+    /**
+     * Returns the result of a finished run, or null.
+     */
+    public LoadResult getResult() { return this.result; }
+
+    /**
+     * Returns the reason a run failed, or null.
+     */
+    public String getError() { return this.error; }
+}
@@ -0,0 +1,217 @@
+package org.onosproject.tpc.load;
+
+import org.onlab.packet.Data;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.report.ReportPipelineStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Injects synthetic checker reports (ethType 0x5678 packet-ins) into a
+ * packet processor at a fixed open-loop rate and measures how the report
+ * pipeline behind it keeps up. Reports come from devices named
+ * "device:loadgen-N" and carry slice ids 1..N as their slice index. The
+ * processor is expected to feed a pipeline of its own, so that a run does
+ * not touch the live journal, suppression windows, incidents or
+ * mitigations.
+ */
+public class ReportLoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(ReportLoadGenerator.class);
+
+    private static final short CHECKER_REPORT_ETH_TYPE = (short) 0x5678;
+    private static final long LAG_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PacketProcessor processor;
+    private final ReportPipelineStats stats;
+
+    /**
+     * Creates a generator.
+     *
+     * @param processor processor to inject reports into
+     * @param stats stats of the pipeline behind the processor, enabled for
+     *              the duration of the run
+     */
+    public ReportLoadGenerator(PacketProcessor processor, ReportPipelineStats stats) {
+        this.processor = processor;
+        this.stats = stats;
+    }
+
+    public LoadResult run(LoadConfig config) throws InterruptedException {
+        log.info("Starting load run: {}", config);
+        InboundPacket[] packets = buildPackets(config);
+        double[] cdf = buildCdf(config);
+
+        AtomicLong offered = new AtomicLong();
+        AtomicLong handled = new AtomicLong();
+        AtomicLong lagged = new AtomicLong();
+        AtomicLong allocated = new AtomicLong();
+
+        stats.reset();
+        stats.setEnabled(true);
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) * config.getThreads() / config.getRate();
+        long reportsPerThread = config.getRate() * config.getDuration() / 1000 / config.getThreads();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < config.getThreads(); t++) {
+            Random random = new Random(config.getSeed() + t);
+            long threadStart = startNanos + intervalNanos * t / config.getThreads();
+            Thread thread = new Thread(() -> {
+                long allocatedBefore = allocatedBytes();
+                for (long i = 0; i < reportsPerThread && !Thread.currentThread().isInterrupted(); i++) {
+                    long due = threadStart + i * intervalNanos;
+                    long now = System.nanoTime();
+                    while (now < due) {
+                        LockSupport.parkNanos(due - now);
+                        now = System.nanoTime();
+                    }
+                    if (now - due > LAG_THRESHOLD) {
+                        lagged.incrementAndGet();
+                    }
+
+                    LoadPacketContext context = new LoadPacketContext(packets[pick(random, cdf)]);
+                    processor.process(context);
+                    offered.incrementAndGet();
+                    if (context.isHandled()) {
+                        handled.incrementAndGet();
+                    }
+                }
+                long allocatedAfter = allocatedBytes();
+                if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                    allocated.addAndGet(allocatedAfter - allocatedBefore);
+                } else {
+                    allocated.set(Long.MIN_VALUE);
+                }
+            }, "onos-tpc-loadgen-" + t);
+            threads.add(thread);
+        }
+
+        try {
+            threads.forEach(Thread::start);
+            for (Thread thread: threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            throw e;
+        } finally {
+            stats.setEnabled(false);
+        }
+
+        long elapsed = System.currentTimeMillis() - startMillis;
+        Map<ReportPipelineStats.Stage, long[]> latencies = new EnumMap<>(ReportPipelineStats.Stage.class);
+        for (ReportPipelineStats.Stage stage: ReportPipelineStats.Stage.values()) {
+            latencies.put(stage, new long[] {
+                    stats.get(stage).percentile(50), stats.get(stage).percentile(90),
+                    stats.get(stage).percentile(99), stats.get(stage).max()});
+        }
+
+        LoadResult result = new LoadResult(config, offered.get(), handled.get(), stats.getDropped(), lagged.get(),
+                elapsed, Math.max(-1L, allocated.get()), latencies);
+        log.info("Load run done: offered={}, handled={}, dropped={}, lagged={}, throughput={}/s",
+                result.getOffered(), result.getHandled(), result.getDropped(), result.getLagged(),
+                (long) result.getThroughput());
+        return result;
+    }
+
+    /**
+     * Builds one report frame per key. Keys are drawn from the
+     * (device, port, slice) space with the configured seed.
+     */
+    private InboundPacket[] buildPackets(LoadConfig config) {
+        Random random = new Random(config.getSeed());
+        InboundPacket[] packets = new InboundPacket[config.getKeyCount()];
+        for (int i = 0; i < packets.length; i++) {
+            DeviceId deviceId = DeviceId.deviceId("device:loadgen-" + random.nextInt(config.getDeviceCount()));
+            int port = 1 + random.nextInt(config.getPortsPerDevice());
+            int slice = 1 + random.nextInt(config.getSliceCount());
+
+            byte[] header = CheckerReport.encode(CheckType.values()[random.nextInt(2)], slice, port);
+
+            Ethernet eth = new Ethernet();
+            eth.setEtherType(CHECKER_REPORT_ETH_TYPE);
+            eth.setSourceMACAddress(MacAddress.valueOf(0x020000000000L + i));
+            eth.setDestinationMACAddress(MacAddress.BROADCAST);
+            eth.setPayload(new Data(header));
+
+            ConnectPoint receivedFrom = new ConnectPoint(deviceId, PortNumber.CONTROLLER);
+            packets[i] = new DefaultInboundPacket(receivedFrom, eth, ByteBuffer.wrap(eth.serialize()));
+        }
+        return packets;
+    }
+
+    private double[] buildCdf(LoadConfig config) {
+        double[] cdf = new double[config.getKeyCount()];
+        double sum = 0;
+        for (int i = 0; i < cdf.length; i++) {
+            double weight = config.getDistribution() == LoadConfig.Distribution.ZIPF
+                    ? 1.0 / Math.pow(i + 1, config.getZipfExponent()) : 1.0;
+            sum += weight;
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int pick(Random random, double[] cdf) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if
+     * not supported. Uses reflection so that the bundle does not import
+     * com.sun.management.
+     */
+    private static long allocatedBytes() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            Class<?> hotspotBean = Class.forName("com.sun.management.ThreadMXBean");
+            if (!hotspotBean.isInstance(bean)) {
+                return -1L;
+            }
+            Method method = hotspotBean.getMethod("getThreadAllocatedBytes", long.class);
+            return (long) method.invoke(bean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    private static class LoadPacketContext extends DefaultPacketContext {
+        LoadPacketContext(InboundPacket inPacket) {
+            super(System.currentTimeMillis(), inPacket, null, false);
+        }
+
+        @Override
+        public void send() {
+            // Synthetic packet-ins are never sent back out
+        }
+    }
+}
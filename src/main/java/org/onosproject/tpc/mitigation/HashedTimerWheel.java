@@ -0,0 +1,106 @@
+package org.onosproject.tpc.mitigation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel. Scheduling and cancelling are O(1); each tick only
+ * visits the timeouts hashed to the current bucket. Expiry is accurate to
+ * one tick.
+ */
+public class HashedTimerWheel {
+    private static final Logger log = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    private final long tickMillis;
+    private final List<Set<Timeout>> wheel;
+    private final ScheduledExecutorService executor;
+    private ScheduledFuture<?> ticker;
+    private long tick;
+
+    public HashedTimerWheel(long tickMillis, int wheelSize, ScheduledExecutorService executor) {
+        this.tickMillis = tickMillis;
+        this.executor = executor;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new HashSet<>());
+        }
+    }
+
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = executor.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+        wheel.forEach(Set::clear);
+    }
+
+    /**
+     * Schedules a task to run after the given delay.
+     *
+     * @param task task to run on the wheel's executor
+     * @param delayMillis delay in milliseconds
+     * @return handle that can be used to cancel the task
+     */
+    public synchronized Timeout schedule(Runnable task, long delayMillis) {
+        long ticks = Math.max(1L, (delayMillis + tickMillis - 1) / tickMillis);
+        int bucket = (int) ((tick + ticks) % wheel.size());
+        Timeout timeout = new Timeout(task, bucket, (ticks - 1) / wheel.size());
+        wheel.get(bucket).add(timeout);
+        return timeout;
+    }
+
+    private void advance() {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            tick++;
+            Set<Timeout> bucket = wheel.get((int) (tick % wheel.size()));
+            bucket.removeIf(timeout -> {
+                if (timeout.rounds == 0) {
+                    expired.add(timeout);
+                    return true;
+                }
+                timeout.rounds--;
+                return false;
+            });
+        }
+        for (Timeout timeout: expired) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                log.error("Timer task failed", e);
+            }
+        }
+    }
+
+    public class Timeout {
+        private final Runnable task;
+        private final int bucket;
+        private long rounds;
+
+        Timeout(Runnable task, int bucket, long rounds) {
+            this.task = task;
+            this.bucket = bucket;
+            this.rounds = rounds;
+        }
+
+        public void cancel() {
+            synchronized (HashedTimerWheel.this) {
+                wheel.get(bucket).remove(this);
+            }
+        }
+    }
+}
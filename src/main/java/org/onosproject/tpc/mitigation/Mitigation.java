@@ -0,0 +1,40 @@
+package org.onosproject.tpc.mitigation;
+
+import org.onosproject.tpc.common.CheckerReport;
+
+/**
+ * Mitigation installed for the (device, egress port, slice) of a checker report.
+ */
+public class Mitigation {
+    private final CheckerReport report;
+    private final long installedAt;
+    private final long expiresAt;
+    private HashedTimerWheel.Timeout timeout;
+
+    Mitigation(CheckerReport report, long installedAt, long expiresAt) {
+        this.report = report;
+        this.installedAt = installedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public CheckerReport getReport() { return this.report; }
+
+    public long getInstalledAt() { return this.installedAt; }
+
+    public long getExpiresAt() { return this.expiresAt; }
+
+    void setTimeout(HashedTimerWheel.Timeout timeout) { this.timeout = timeout; }
+
+    void cancel() {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Mitigation: deviceId=%s, portNumber=%s, sliceId=%s, checkType=%s, expiresAt=%s",
+                report.getDeviceId(), report.getPortNumber(), report.getSliceId(), report.getCheckType(), expiresAt);
+    }
+}
@@ -0,0 +1,215 @@
+package org.onosproject.tpc.mitigation;
+
+import com.google.common.collect.Maps;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.common.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop mitigation of repeated violations. Once the report count of
+ * a (device, port, slice, check type) in the current window reaches the threshold, a
+ * mitigation is installed through the actuator and expires after a fixed
+ * TTL. Installs are rate limited so that a mass attack cannot turn into a
+ * rule-install storm.
+ */
+public class MitigationEngine {
+    private static final Logger log = LoggerFactory.getLogger(MitigationEngine.class);
+
+    /**
+     * Installs and removes the rules backing a mitigation.
+     */
+    public interface Actuator {
+        /**
+         * Installs the rules backing the mitigation.
+         *
+         * @param mitigation mitigation to install
+         * @return false if the mitigation cannot be applied to its device or
+         *         slice, in which case nothing was installed
+         */
+        boolean install(Mitigation mitigation);
+
+        void remove(Mitigation mitigation);
+    }
+
+    private final long threshold;
+    private final long ttlMillis;
+    private final TokenBucket rateLimiter;
+    private final HashedTimerWheel timerWheel;
+    private final Actuator actuator;
+
+    private final Map<Long, Mitigation> active = Maps.newConcurrentMap();
+    private final AtomicLong installed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile boolean enabled;
+
+    public MitigationEngine(long threshold, long ttlMillis, double ratePerSecond, int burst,
+                            HashedTimerWheel timerWheel, Actuator actuator) {
+        this.threshold = threshold;
+        this.ttlMillis = ttlMillis;
+        this.rateLimiter = new TokenBucket(ratePerSecond, burst);
+        this.timerWheel = timerWheel;
+        this.actuator = actuator;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            removeAll();
+        }
+    }
+
+    /**
+     * Accounts for a report and mitigates its key if it crossed the threshold.
+     *
+     * @param report decoded report
+     * @param count estimated report count for the key in the current window
+     * @param receivedNanos System.nanoTime() at which the report was received
+     */
+    public void onReport(CheckerReport report, long count, long receivedNanos) {
+        if (!enabled || count < threshold) {
+            return;
+        }
+
+        long key = report.key();
+        if (active.containsKey(key)) {
+            return;
+        }
+        if (!rateLimiter.tryAcquire()) {
+            rateLimited.incrementAndGet();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Mitigation mitigation = new Mitigation(report, now, now + ttlMillis);
+        if (active.putIfAbsent(key, mitigation) != null) {
+            return;
+        }
+
+        if (!actuator.install(mitigation)) {
+            active.remove(key, mitigation);
+            skipped.incrementAndGet();
+            return;
+        }
+        installed.incrementAndGet();
+        latency.record(System.nanoTime() - receivedNanos);
+        mitigation.setTimeout(timerWheel.schedule(() -> expire(key, mitigation), ttlMillis));
+        log.info("Installed {}", mitigation);
+    }
+
+    private void expire(long key, Mitigation mitigation) {
+        if (active.remove(key, mitigation)) {
+            actuator.remove(mitigation);
+            expired.incrementAndGet();
+            log.info("Expired {}", mitigation);
+        }
+    }
+
+    /**
+     * Removes all active mitigations and their rules.
+     */
+    public void removeAll() {
+        for (Map.Entry<Long, Mitigation> entry: active.entrySet()) {
+            entry.getValue().cancel();
+            expire(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Forgets all active mitigations without removing their rules, e.g.
+     * after the rules have been flushed.
+     */
+    public void clear() {
+        active.values().forEach(Mitigation::cancel);
+        active.clear();
+    }
+
+    public List<Mitigation> getActive() {
+        return new ArrayList<>(active.values());
+    }
+
+    public long getInstalled() { return installed.get(); }
+
+    public long getExpired() { return expired.get(); }
+
+    public long getRateLimited() { return rateLimited.get(); }
+
+    /**
+     * Returns the number of mitigations the actuator could not apply, e.g.
+     * on non-TPC devices or QoS violations of a slice without a meter.
+     *
+     * @return skipped mitigations
+     */
+    public long getSkipped() { return skipped.get(); }
+
+    /**
+     * Returns the report-to-mitigation latency histogram.
+     *
+     * @return latency histogram, in nanoseconds
+     */
+    public LatencyHistogram getLatency() { return latency; }
+
+    /**
+     * Returns a snapshot of the counters, latency and active mitigations.
+     *
+     * @return engine statistics
+     */
+    public Stats stats() {
+        return new Stats(enabled, installed.get(), expired.get(), rateLimited.get(), skipped.get(),
+                new long[] {latency.percentile(50), latency.percentile(90), latency.percentile(99), latency.max()},
+                getActive());
+    }
+
+    public static class Stats {
+        private final boolean enabled;
+        private final long installed;
+        private final long expired;
+        private final long rateLimited;
+        private final long skipped;
+        private final long[] latency;
+        private final List<Mitigation> active;
+
+        Stats(boolean enabled, long installed, long expired, long rateLimited, long skipped, long[] latency,
+              List<Mitigation> active) {
+            this.enabled = enabled;
+            this.installed = installed;
+            this.expired = expired;
+            this.rateLimited = rateLimited;
+            this.skipped = skipped;
+            this.latency = latency;
+            this.active = Collections.unmodifiableList(active);
+        }
+
+        public boolean isEnabled() { return this.enabled; }
+
+        public long getInstalled() { return this.installed; }
+
+        public long getExpired() { return this.expired; }
+
+        public long getRateLimited() { return this.rateLimited; }
+
+        public long getSkipped() { return this.skipped; }
+
+        /**
+         * Returns the report-to-mitigation latency.
+         *
+         * @return {p50, p90, p99, max}, in nanoseconds
+         */
+        public long[] getLatency() { return this.latency.clone(); }
+
+        public List<Mitigation> getActive() { return this.active; }
+    }
+}
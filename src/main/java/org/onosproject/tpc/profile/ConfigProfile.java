@@ -0,0 +1,43 @@
+package org.onosproject.tpc.profile;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+import org.onosproject.tpc.common.ExfiltrationAttackEntry;
+import org.onosproject.tpc.common.SliceQoSEntry;
+
+import java.util.List;
+
+/**
+ * Named fabric configuration: slice ids, slice QoS and attack entries.
+ * Activating a profile makes it the complete desired state of the app.
+ */
+public class ConfigProfile {
+    private final String name;
+    private final List<CheckerSliceIdEntry> sliceIdEntries;
+    private final List<SliceQoSEntry> sliceQoSEntries;
+    private final List<ExfiltrationAttackEntry> attackEntries;
+
+    public ConfigProfile(String name, List<CheckerSliceIdEntry> sliceIdEntries, List<SliceQoSEntry> sliceQoSEntries,
+                         List<ExfiltrationAttackEntry> attackEntries)
+    {
+        this.name = name;
+        this.sliceIdEntries = ImmutableList.copyOf(sliceIdEntries);
+        this.sliceQoSEntries = ImmutableList.copyOf(sliceQoSEntries);
+        this.attackEntries = ImmutableList.copyOf(attackEntries);
+    }
+
+    public String getName() { return this.name; }
+
+    public List<CheckerSliceIdEntry> getSliceIdEntries() { return this.sliceIdEntries; }
+
+    public List<SliceQoSEntry> getSliceQoSEntries() { return this.sliceQoSEntries; }
+
+    public List<ExfiltrationAttackEntry> getAttackEntries() { return this.attackEntries; }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "ConfigProfile: name=%s, sliceIdEntries=%s, sliceQoSEntries=%s, attackEntries=%s",
+                name, sliceIdEntries.size(), sliceQoSEntries.size(), attackEntries.size());
+    }
+}
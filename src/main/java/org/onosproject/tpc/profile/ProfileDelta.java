@@ -0,0 +1,114 @@
+package org.onosproject.tpc.profile;
+
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+import org.onosproject.tpc.common.ExfiltrationAttackEntry;
+import org.onosproject.tpc.common.SliceQoSEntry;
+import org.onosproject.tpc.store.AttackEntryStore;
+import org.onosproject.tpc.store.SliceAssignmentStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Difference between the current configuration and a profile: the entries
+ * of the profile that are new or changed, and the current entries that the
+ * profile no longer has. Entries already in place are in neither.
+ */
+public class ProfileDelta {
+    private final List<SliceQoSEntry> changedQoS = new ArrayList<>();
+    private final List<CheckerSliceIdEntry> changedSliceIds = new ArrayList<>();
+    private final List<ExfiltrationAttackEntry> changedAttacks = new ArrayList<>();
+    private final List<Integer> staleQoS = new ArrayList<>();
+    private final List<CheckerSliceIdEntry> staleSliceIds = new ArrayList<>();
+    private final List<ExfiltrationAttackEntry> staleAttacks = new ArrayList<>();
+
+    /**
+     * Computes the delta from the current configuration to the profile.
+     *
+     * @param profile target profile
+     * @param sliceQoS current PIR per slice id
+     * @param assignments current slice id assignments
+     * @param attacks current attack entries
+     * @return delta
+     */
+    public static ProfileDelta compute(ConfigProfile profile, Map<Integer, Long> sliceQoS,
+                                       SliceAssignmentStore assignments, AttackEntryStore attacks) {
+        ProfileDelta delta = new ProfileDelta();
+
+        Set<Integer> targetQoS = new HashSet<>();
+        for (SliceQoSEntry entry: profile.getSliceQoSEntries()) {
+            targetQoS.add(entry.getSliceId());
+            Long pir = sliceQoS.get(entry.getSliceId());
+            if (pir == null || pir != entry.getPir()) {
+                delta.changedQoS.add(entry);
+            }
+        }
+        sliceQoS.keySet().stream()
+                .filter(sliceId -> !targetQoS.contains(sliceId))
+                .forEach(delta.staleQoS::add);
+
+        Set<ConnectPoint> targetAssignments = new HashSet<>();
+        for (CheckerSliceIdEntry entry: profile.getSliceIdEntries()) {
+            DeviceId deviceId = DeviceId.deviceId(entry.getDeviceId());
+            targetAssignments.add(new ConnectPoint(deviceId, entry.getPortNumber()));
+            if (assignments.get(deviceId, entry.getPortNumber()) != entry.getSliceId()) {
+                delta.changedSliceIds.add(entry);
+            }
+        }
+        assignments.forEach((deviceId, portNumber, sliceId) -> {
+            if (!targetAssignments.contains(new ConnectPoint(deviceId, portNumber))) {
+                delta.staleSliceIds.add(new CheckerSliceIdEntry(deviceId.toString(), portNumber, sliceId));
+            }
+        });
+
+        Map<DeviceId, Set<Long>> targetAttacks = new HashMap<>();
+        for (ExfiltrationAttackEntry entry: profile.getAttackEntries()) {
+            DeviceId deviceId = DeviceId.deviceId(entry.getDeviceId());
+            int src = entry.getSrcAddress().toInt();
+            int dst = entry.getDstAddress().toInt();
+            targetAttacks.computeIfAbsent(deviceId, k -> new HashSet<>()).add(AttackEntryStore.pack(src, dst));
+            OptionalLong rewrite = attacks.getRewrite(deviceId, src, dst);
+            if (!rewrite.isPresent() || rewrite.getAsLong() != AttackEntryStore.pack(
+                    entry.getSrcAddressRewritten().toInt(), entry.getDstAddressRewritten().toInt())) {
+                delta.changedAttacks.add(entry);
+            }
+        }
+        attacks.forEach((deviceId, src, dst, srcRewritten, dstRewritten) -> {
+            Set<Long> target = targetAttacks.getOrDefault(deviceId, Collections.emptySet());
+            if (!target.contains(AttackEntryStore.pack(src, dst))) {
+                delta.staleAttacks.add(new ExfiltrationAttackEntry(deviceId.toString(), Ip4Address.valueOf(src),
+                        Ip4Address.valueOf(dst), Ip4Address.valueOf(srcRewritten), Ip4Address.valueOf(dstRewritten)));
+            }
+        });
+        return delta;
+    }
+
+    public List<SliceQoSEntry> getChangedQoS() { return this.changedQoS; }
+
+    public List<CheckerSliceIdEntry> getChangedSliceIds() { return this.changedSliceIds; }
+
+    public List<ExfiltrationAttackEntry> getChangedAttacks() { return this.changedAttacks; }
+
+    /**
+     * Returns the slice ids whose QoS the profile no longer has.
+     */
+    public List<Integer> getStaleQoS() { return this.staleQoS; }
+
+    public List<CheckerSliceIdEntry> getStaleSliceIds() { return this.staleSliceIds; }
+
+    public List<ExfiltrationAttackEntry> getStaleAttacks() { return this.staleAttacks; }
+
+    public boolean isEmpty() {
+        return changedQoS.isEmpty() && changedSliceIds.isEmpty() && changedAttacks.isEmpty()
+                && staleQoS.isEmpty() && staleSliceIds.isEmpty() && staleAttacks.isEmpty();
+    }
+}
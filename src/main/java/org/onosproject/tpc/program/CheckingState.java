@@ -0,0 +1,225 @@
+package org.onosproject.tpc.program;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.tpc.common.CheckType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Check types enabled on each device, and the devices whose punt ACL is
+ * installed.
+ * <p>
+ * Checks are scoped per device and check type. They cannot be scoped per
+ * slice: the should_check tables only match on eth_is_valid, so a check
+ * covers every slice on the device.
+ * <p>
+ * An update takes effect immediately, so that concurrent requests see it.
+ * Each change is stamped with a generation; if programming it fails, it is
+ * rolled back unless a later update changed the same entry since. A failed
+ * enable thus leaves the check disabled, and enabling it again reprograms
+ * it.
+ */
+public class CheckingState {
+
+    /**
+     * Rule changes needed on one device by a state update.
+     */
+    public static class Delta {
+        private final DeviceId deviceId;
+        private final long generation;
+        private final boolean punt;
+        private final Set<CheckType> enabled;
+        private final Set<CheckType> disabled;
+
+        Delta(DeviceId deviceId, long generation, boolean punt, Set<CheckType> enabled, Set<CheckType> disabled) {
+            this.deviceId = deviceId;
+            this.generation = generation;
+            this.punt = punt;
+            this.enabled = Collections.unmodifiableSet(enabled);
+            this.disabled = Collections.unmodifiableSet(disabled);
+        }
+
+        public DeviceId getDeviceId() { return this.deviceId; }
+
+        /**
+         * Returns the generation to pass to the rollback methods if
+         * programming part of this change fails.
+         *
+         * @return generation of the change
+         */
+        public long getGeneration() { return this.generation; }
+
+        /**
+         * Returns whether the punt ACL must be installed first.
+         *
+         * @return true if the device has no punt ACL yet
+         */
+        public boolean isPunt() { return this.punt; }
+
+        public Set<CheckType> getEnabled() { return this.enabled; }
+
+        public Set<CheckType> getDisabled() { return this.disabled; }
+    }
+
+    // Slot per check type ordinal, and a last slot for the punt ACL
+    private static final int PUNT = CheckType.values().length;
+
+    private final Map<DeviceId, Set<CheckType>> enabled = new HashMap<>();
+    private final Set<DeviceId> punted = new HashSet<>();
+    private final Map<DeviceId, long[]> generations = new HashMap<>();
+    private long generation;
+
+    /**
+     * Enables or disables the check types on the devices and returns the
+     * changes to program, one per device whose state changed. Devices that
+     * already are in the requested state yield no change. The punt ACL is
+     * requested the first time a device enables any check.
+     *
+     * @param deviceIds devices to update
+     * @param checkTypes check types to enable or disable
+     * @param enable true to enable, false to disable
+     * @return per-device changes
+     */
+    public synchronized List<Delta> update(Set<DeviceId> deviceIds, Set<CheckType> checkTypes, boolean enable) {
+        List<Delta> deltas = new ArrayList<>();
+        for (DeviceId deviceId: deviceIds) {
+            Set<CheckType> current = enabled.computeIfAbsent(deviceId, k -> EnumSet.noneOf(CheckType.class));
+            Set<CheckType> changed = EnumSet.noneOf(CheckType.class);
+            for (CheckType checkType: checkTypes) {
+                if (enable ? current.add(checkType) : current.remove(checkType)) {
+                    changed.add(checkType);
+                }
+            }
+            if (current.isEmpty()) {
+                enabled.remove(deviceId);
+            }
+            if (changed.isEmpty()) {
+                continue;
+            }
+            long stamp = ++generation;
+            long[] stamps = generationsOf(deviceId);
+            changed.forEach(checkType -> stamps[checkType.ordinal()] = stamp);
+            if (enable) {
+                boolean punt = punted.add(deviceId);
+                if (punt) {
+                    stamps[PUNT] = stamp;
+                }
+                deltas.add(new Delta(deviceId, stamp, punt, changed, EnumSet.noneOf(CheckType.class)));
+            } else {
+                deltas.add(new Delta(deviceId, stamp, false, EnumSet.noneOf(CheckType.class), changed));
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Records that the punt ACL of the device is being installed.
+     *
+     * @param deviceId device
+     * @return generation of the change, or empty if it was already recorded
+     */
+    public synchronized OptionalLong markPunted(DeviceId deviceId) {
+        if (!punted.add(deviceId)) {
+            return OptionalLong.empty();
+        }
+        long stamp = ++generation;
+        generationsOf(deviceId)[PUNT] = stamp;
+        return OptionalLong.of(stamp);
+    }
+
+    /**
+     * Rolls back a check type change whose programming failed, unless the
+     * entry changed since.
+     *
+     * @param deviceId device
+     * @param checkType check type
+     * @param enable whether the failed change enabled the check
+     * @param generation generation of the failed change
+     * @return true if the change was rolled back
+     */
+    public synchronized boolean rollback(DeviceId deviceId, CheckType checkType, boolean enable, long generation) {
+        long[] stamps = generations.get(deviceId);
+        if (stamps == null || stamps[checkType.ordinal()] != generation) {
+            return false;
+        }
+        stamps[checkType.ordinal()] = 0;
+        if (enable) {
+            Set<CheckType> current = enabled.get(deviceId);
+            current.remove(checkType);
+            if (current.isEmpty()) {
+                enabled.remove(deviceId);
+            }
+        } else {
+            enabled.computeIfAbsent(deviceId, k -> EnumSet.noneOf(CheckType.class)).add(checkType);
+        }
+        return true;
+    }
+
+    /**
+     * Rolls back the punt ACL of a device whose programming failed, so that
+     * the next enable installs it again.
+     *
+     * @param deviceId device
+     * @param generation generation of the failed change
+     * @return true if the change was rolled back
+     */
+    public synchronized boolean rollbackPunt(DeviceId deviceId, long generation) {
+        long[] stamps = generations.get(deviceId);
+        if (stamps == null || stamps[PUNT] != generation) {
+            return false;
+        }
+        stamps[PUNT] = 0;
+        punted.remove(deviceId);
+        return true;
+    }
+
+    /**
+     * Returns the check types enabled on each device.
+     *
+     * @return copy of the state
+     */
+    public synchronized Map<DeviceId, Set<CheckType>> snapshot() {
+        Map<DeviceId, Set<CheckType>> state = new HashMap<>();
+        enabled.forEach((deviceId, checkTypes) -> state.put(deviceId, EnumSet.copyOf(checkTypes)));
+        return state;
+    }
+
+    /**
+     * Returns the devices with at least one check enabled.
+     *
+     * @return copy of the device set
+     */
+    public synchronized Set<DeviceId> devices() {
+        return new HashSet<>(enabled.keySet());
+    }
+
+    /**
+     * Forgets a device, so that its punt ACL is requested again and its
+     * checks start from scratch if it comes back.
+     *
+     * @param deviceId device
+     */
+    public synchronized void remove(DeviceId deviceId) {
+        enabled.remove(deviceId);
+        punted.remove(deviceId);
+        generations.remove(deviceId);
+    }
+
+    public synchronized void clear() {
+        enabled.clear();
+        punted.clear();
+        generations.clear();
+    }
+
+    private long[] generationsOf(DeviceId deviceId) {
+        return generations.computeIfAbsent(deviceId, k -> new long[PUNT + 1]);
+    }
+}
@@ -0,0 +1,17 @@
+package org.onosproject.tpc.program;
+
+import org.onosproject.net.DeviceId;
+
+/**
+ * Failure of a programming operation on a device.
+ */
+public class ProgrammingException extends RuntimeException {
+    private final DeviceId deviceId;
+
+    public ProgrammingException(DeviceId deviceId, String reason) {
+        super(String.format("Programming failed on %s: %s", deviceId, reason));
+        this.deviceId = deviceId;
+    }
+
+    public DeviceId getDeviceId() { return this.deviceId; }
+}
@@ -0,0 +1,471 @@
+package org.onosproject.tpc.program;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-device scheduler of programming operations.
+ * <p>
+ * Each device has its own queue, and devices are programmed concurrently.
+ * Within a device, CRITICAL operations (punt ACL, slice lookup, stripping,
+ * meters) always go first. GATED operations (turning checks on and off,
+ * removing entries dropped by a profile switchover) are held until no
+ * CRITICAL operation is queued or in flight on that device, so the
+ * checkers never run against a half-programmed device and old entries
+ * outlive the CRITICAL entries that replace them. BULK operations (attack
+ * entries, mitigations) fill the remaining capacity. At most
+ * {@code maxInFlight} operations are outstanding per device.
+ * <p>
+ * An operation may carry a key naming the entry it programs. A keyed
+ * operation supersedes, i.e. cancels, a queued operation with the same key
+ * on the same device, whatever its priority, and never runs while another
+ * operation with that key is in flight, so the last submission for an
+ * entry always lands last.
+ * <p>
+ * An operation that fails, throws or does not complete within
+ * {@code timeoutMillis} is failed, so that a lost callback cannot stall a
+ * device. When a CRITICAL operation fails, the GATED operations queued on
+ * the device at that time are cancelled rather than released onto a
+ * half-programmed device, and the failure listener is notified. A timed
+ * out operation may still land on the device later; {@link #drain(long)}
+ * only waits for the timeout, not for the device.
+ */
+public class ProgrammingScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ProgrammingScheduler.class);
+
+    public enum Priority {
+        CRITICAL,
+        GATED,
+        BULK
+    }
+
+    /**
+     * Asynchronous programming operation.
+     */
+    public interface Operation {
+        /**
+         * Starts the operation. Exactly one method of {@code done} must be
+         * called once when the operation completes.
+         *
+         * @param done completion callback
+         */
+        void execute(Completion done);
+    }
+
+    /**
+     * Completion callback of an operation.
+     */
+    public interface Completion {
+        void succeeded();
+
+        void failed(String reason);
+    }
+
+    /**
+     * Notified when a CRITICAL operation fails on a device.
+     */
+    public interface FailureListener {
+        /**
+         * Called after a CRITICAL operation failed.
+         *
+         * @param deviceId device of the operation
+         * @param reason failure reason
+         * @param cancelled number of GATED operations cancelled as a result
+         */
+        void onCriticalFailure(DeviceId deviceId, String reason, int cancelled);
+    }
+
+    private final ScheduledExecutorService executor;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+    private final Map<DeviceId, DeviceQueue> queues = Maps.newConcurrentMap();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private volatile FailureListener failureListener = (deviceId, reason, count) -> { };
+
+    public ProgrammingScheduler(ScheduledExecutorService executor, int maxInFlight, long timeoutMillis) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setFailureListener(FailureListener failureListener) {
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * Queues an unkeyed operation.
+     *
+     * @param deviceId device to program
+     * @param priority scheduling priority
+     * @param operation operation to run
+     * @return future completed when the operation succeeds, or exceptionally
+     *         when it fails, times out or is cancelled
+     */
+    public CompletableFuture<Void> submit(DeviceId deviceId, Priority priority, Operation operation) {
+        return submit(deviceId, priority, null, operation);
+    }
+
+    /**
+     * Queues an operation on the entry named by the key, superseding any
+     * queued operation with the same key on the device.
+     *
+     * @param deviceId device to program
+     * @param priority scheduling priority
+     * @param key entry programmed by the operation, or null
+     * @param operation operation to run
+     * @return future completed when the operation succeeds, or exceptionally
+     *         when it fails, times out or is cancelled
+     */
+    public CompletableFuture<Void> submit(DeviceId deviceId, Priority priority, Object key, Operation operation) {
+        Task task = new Task(priority, key, operation);
+        queues.computeIfAbsent(deviceId, DeviceQueue::new).add(task);
+        return task.future;
+    }
+
+    /**
+     * Cancels all queued operations. Operations already in flight complete
+     * normally.
+     */
+    public void clear() {
+        queues.values().forEach(DeviceQueue::clear);
+    }
+
+    /**
+     * Cancels all queued operations and waits until no operation is in
+     * flight, so that nothing lands on the devices after this returns.
+     *
+     * @param waitMillis maximum time to wait
+     * @return false if operations were still in flight when the wait ended
+     */
+    public boolean drain(long waitMillis) {
+        clear();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        boolean drained = true;
+        for (DeviceQueue queue: queues.values()) {
+            drained &= queue.awaitIdle(deadline);
+        }
+        return drained;
+    }
+
+    /**
+     * Cancels the queued operations of a device and forgets it, e.g. once
+     * it left the network. Operations in flight complete normally.
+     *
+     * @param deviceId device to forget
+     */
+    public void remove(DeviceId deviceId) {
+        DeviceQueue queue = queues.remove(deviceId);
+        if (queue != null) {
+            queue.clear();
+        }
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    public long getCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Returns the number of queued and in-flight operations per device.
+     *
+     * @return map from device to {queued, inFlight}
+     */
+    public Map<DeviceId, int[]> getState() {
+        Map<DeviceId, int[]> state = new HashMap<>();
+        queues.forEach((deviceId, queue) -> state.put(deviceId, queue.state()));
+        return state;
+    }
+
+    /**
+     * Returns a snapshot of the counters and per-device state.
+     *
+     * @return scheduler statistics
+     */
+    public Stats stats() {
+        return new Stats(completed.get(), failed.get(), timedOut.get(), cancelled.get(), getState());
+    }
+
+    public static class Stats {
+        private final long completed;
+        private final long failed;
+        private final long timedOut;
+        private final long cancelled;
+        private final Map<DeviceId, int[]> state;
+
+        Stats(long completed, long failed, long timedOut, long cancelled, Map<DeviceId, int[]> state) {
+            this.completed = completed;
+            this.failed = failed;
+            this.timedOut = timedOut;
+            this.cancelled = cancelled;
+            this.state = Collections.unmodifiableMap(state);
+        }
+
+        public long getCompleted() { return this.completed; }
+
+        public long getFailed() { return this.failed; }
+
+        public long getTimedOut() { return this.timedOut; }
+
+        public long getCancelled() { return this.cancelled; }
+
+        /**
+         * Returns the number of queued and in-flight operations per device.
+         *
+         * @return map from device to {queued, inFlight}
+         */
+        public Map<DeviceId, int[]> getState() { return this.state; }
+    }
+
+    private class Task {
+        private final Priority priority;
+        private final Object key;
+        private final Operation operation;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Task(Priority priority, Object key, Operation operation) {
+            this.priority = priority;
+            this.key = key;
+            this.operation = operation;
+        }
+
+        void cancel(String reason) {
+            if (future.completeExceptionally(new CancellationException(reason))) {
+                cancelled.incrementAndGet();
+            }
+        }
+    }
+
+    private class DeviceQueue {
+        private final DeviceId deviceId;
+        private final Deque<Task> critical = new ArrayDeque<>();
+        private final Deque<Task> gated = new ArrayDeque<>();
+        private final Deque<Task> bulk = new ArrayDeque<>();
+        private final Set<Object> keysInFlight = new HashSet<>();
+        private int inFlight;
+        private int criticalInFlight;
+
+        DeviceQueue(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        void add(Task task) {
+            List<Task> superseded = new ArrayList<>();
+            synchronized (this) {
+                if (task.key != null) {
+                    removeKey(critical, task.key, superseded);
+                    removeKey(gated, task.key, superseded);
+                    removeKey(bulk, task.key, superseded);
+                }
+                lane(task.priority).add(task);
+            }
+            superseded.forEach(t -> t.cancel("Superseded by a later operation on " + t.key));
+            executor.execute(this::dispatch);
+        }
+
+        private Deque<Task> lane(Priority priority) {
+            switch (priority) {
+                case CRITICAL:
+                    return critical;
+                case GATED:
+                    return gated;
+                default:
+                    return bulk;
+            }
+        }
+
+        private void removeKey(Deque<Task> lane, Object key, List<Task> removed) {
+            for (Iterator<Task> it = lane.iterator(); it.hasNext();) {
+                Task task = it.next();
+                if (key.equals(task.key)) {
+                    it.remove();
+                    removed.add(task);
+                }
+            }
+        }
+
+        void clear() {
+            List<Task> dropped = new ArrayList<>();
+            synchronized (this) {
+                dropped.addAll(critical);
+                dropped.addAll(gated);
+                dropped.addAll(bulk);
+                critical.clear();
+                gated.clear();
+                bulk.clear();
+            }
+            dropped.forEach(task -> task.cancel("Programming queue of " + deviceId + " cleared"));
+        }
+
+        synchronized int[] state() {
+            return new int[] {critical.size() + gated.size() + bulk.size(), inFlight};
+        }
+
+        synchronized boolean awaitIdle(long deadlineNanos) {
+            while (inFlight > 0) {
+                long waitNanos = deadlineNanos - System.nanoTime();
+                if (waitNanos <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Polls the first task of the lane whose entry is not in flight.
+         */
+        private Task poll(Deque<Task> lane) {
+            for (Iterator<Task> it = lane.iterator(); it.hasNext();) {
+                Task task = it.next();
+                if (task.key == null || !keysInFlight.contains(task.key)) {
+                    it.remove();
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        private void dispatch() {
+            while (true) {
+                Task task;
+                synchronized (this) {
+                    if (inFlight >= maxInFlight) {
+                        return;
+                    }
+                    task = poll(critical);
+                    if (task == null && critical.isEmpty() && criticalInFlight == 0) {
+                        task = poll(gated);
+                    }
+                    if (task == null) {
+                        task = poll(bulk);
+                    }
+                    if (task == null) {
+                        return;
+                    }
+                    inFlight++;
+                    if (task.priority == Priority.CRITICAL) {
+                        criticalInFlight++;
+                    }
+                    if (task.key != null) {
+                        keysInFlight.add(task.key);
+                    }
+                }
+                start(task);
+            }
+        }
+
+        private void start(Task task) {
+            TaskCompletion done = new TaskCompletion(task);
+            executor.schedule(() -> {
+                synchronized (DeviceQueue.this) {
+                    if (done.run) {
+                        return;
+                    }
+                }
+                log.warn("Programming operation on {} timed out after {} ms", deviceId, timeoutMillis);
+                timedOut.incrementAndGet();
+                done.failed("timed out after " + timeoutMillis + " ms");
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                task.operation.execute(done);
+            } catch (RuntimeException e) {
+                log.error("Programming operation failed on {}", deviceId, e);
+                done.failed(String.valueOf(e.getMessage()));
+            }
+        }
+
+        private class TaskCompletion implements Completion {
+            private final Task task;
+            private boolean run;
+
+            TaskCompletion(Task task) {
+                this.task = task;
+            }
+
+            @Override
+            public void succeeded() {
+                if (finish()) {
+                    completed.incrementAndGet();
+                    task.future.complete(null);
+                    executor.execute(DeviceQueue.this::dispatch);
+                }
+            }
+
+            @Override
+            public void failed(String reason) {
+                if (!finish()) {
+                    return;
+                }
+                failed.incrementAndGet();
+                if (task.priority == Priority.CRITICAL) {
+                    List<Task> held = new ArrayList<>();
+                    synchronized (DeviceQueue.this) {
+                        held.addAll(gated);
+                        gated.clear();
+                    }
+                    log.warn("Critical programming operation failed on {}: {}; cancelling {} gated operations",
+                            deviceId, reason, held.size());
+                    held.forEach(t -> t.cancel("Critical programming operation failed on " + deviceId));
+                    failureListener.onCriticalFailure(deviceId, reason, held.size());
+                }
+                task.future.completeExceptionally(new ProgrammingException(deviceId, reason));
+                executor.execute(DeviceQueue.this::dispatch);
+            }
+
+            private boolean finish() {
+                synchronized (DeviceQueue.this) {
+                    if (run) {
+                        return false;
+                    }
+                    run = true;
+                    inFlight--;
+                    if (task.priority == Priority.CRITICAL) {
+                        criticalInFlight--;
+                    }
+                    if (task.key != null) {
+                        keysInFlight.remove(task.key);
+                    }
+                    DeviceQueue.this.notifyAll();
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.onosproject.tpc.report;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch with a fixed number of counters.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final long[][] counts;
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    /**
+     * Increments the key and returns its estimated count.
+     *
+     * @param key 64-bit key hash
+     * @return estimated count, never lower than the true count
+     */
+    public long add(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int idx = index(key, i);
+            counts[i][idx]++;
+            estimate = Math.min(estimate, counts[i][idx]);
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            estimate = Math.min(estimate, counts[i][index(key, i)]);
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        for (long[] row: counts) {
+            Arrays.fill(row, 0L);
+        }
+    }
+
+    private int index(long key, int row) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32);
+        return ((h1 + row * h2) & Integer.MAX_VALUE) % width;
+    }
+}
@@ -0,0 +1,160 @@
+package org.onosproject.tpc.report;
+
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.store.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Space-saving top-K tracker of report keys. Holds at most K keys; when a
+ * new key arrives and the table is full, it replaces the key with the
+ * lowest count and inherits that count as its error bound.
+ * <p>
+ * Counters live in parallel arrays ordered as an indexed min-heap on
+ * count, with a primitive map from key to counter slot, so both hits and
+ * replacements are O(log K) and allocation free.
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final LongIntHashMap slots;
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final CheckerReport[] samples;
+    // heap[i] is the slot at heap position i, position[slot] its inverse
+    private final int[] heap;
+    private final int[] position;
+    private int size;
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.slots = new LongIntHashMap(capacity);
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.samples = new CheckerReport[capacity];
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+    }
+
+    public void offer(long key, CheckerReport report) {
+        int slot = slots.get(key);
+        if (slot != LongIntHashMap.NO_VALUE) {
+            counts[slot]++;
+            siftDown(position[slot]);
+            return;
+        }
+
+        if (size < capacity) {
+            slot = size;
+            keys[slot] = key;
+            counts[slot] = 1;
+            errors[slot] = 0;
+            samples[slot] = report;
+            heap[size] = slot;
+            position[slot] = size;
+            size++;
+            slots.put(key, slot);
+            siftUp(position[slot]);
+            return;
+        }
+
+        // Replace the minimum, which is at the root of the heap
+        slot = heap[0];
+        slots.remove(keys[slot]);
+        long min = counts[slot];
+        keys[slot] = key;
+        counts[slot] = min + 1;
+        errors[slot] = min;
+        samples[slot] = report;
+        slots.put(key, slot);
+        siftDown(0);
+    }
+
+    /**
+     * Returns the tracked keys ordered by decreasing count.
+     *
+     * @return heavy hitters
+     */
+    public List<Counter> top() {
+        List<Counter> top = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            top.add(new Counter(samples[slot], counts[slot], errors[slot]));
+        }
+        top.sort(Comparator.comparingLong(Counter::getCount).reversed());
+        return top;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        slots.clear();
+        for (int slot = 0; slot < size; slot++) {
+            samples[slot] = null;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[i]]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int child = (right < size && counts[heap[right]] < counts[heap[left]]) ? right : left;
+            if (counts[heap[i]] <= counts[heap[child]]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+        position[heap[i]] = i;
+        position[heap[j]] = j;
+    }
+
+    public static class Counter {
+        private final CheckerReport sample;
+        private final long count;
+        private final long error;
+
+        Counter(CheckerReport sample, long count, long error) {
+            this.sample = sample;
+            this.count = count;
+            this.error = error;
+        }
+
+        public CheckerReport getSample() { return this.sample; }
+
+        public long getCount() { return this.count; }
+
+        public long getError() { return this.error; }
+
+        @Override
+        public String toString() {
+            return String.format("%s/%s/slice%s=%s(+-%s)",
+                    sample.getDeviceId(), sample.getPortNumber(), sample.getSliceId(), count, error);
+        }
+    }
+}
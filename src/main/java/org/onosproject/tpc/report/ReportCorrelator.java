@@ -0,0 +1,262 @@
+package org.onosproject.tpc.report;
+
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.link.LinkService;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.mitigation.HashedTimerWheel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Joins reports for the same (slice, check type) raised within a window by
+ * devices on the same path into a single incident. Checker reports carry
+ * neither the flow's ingress nor a flow digest, so a report joins an open
+ * incident only if it comes from a port already in the incident or is
+ * linked to it: one of the incident's failing egress ports feeds the
+ * reporting device, or the report's failing egress port feeds a device of
+ * the incident. Concurrent violations of the same slice on unrelated paths
+ * therefore open separate incidents. When the window closes the incident
+ * is localized to its first violating hop: the reporting device that is
+ * not fed by the failing egress port of another reporting device.
+ */
+public class ReportCorrelator {
+    private final LinkService linkService;
+    private final HashedTimerWheel timerWheel;
+    private final long windowMillis;
+    private final Consumer<Incident> listener;
+
+    private final Map<Long, List<Incident>> open = new HashMap<>();
+    private int openCount;
+    private long offered;
+    private long merged;
+    private long incidents;
+
+    public ReportCorrelator(LinkService linkService, HashedTimerWheel timerWheel, long windowMillis,
+                            Consumer<Incident> listener) {
+        this.linkService = linkService;
+        this.timerWheel = timerWheel;
+        this.windowMillis = windowMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds a report to the open incident on its path for its slice and
+     * check type, opening a new incident if there is none.
+     *
+     * @param report translated report
+     * @return true if the report opened a new incident
+     */
+    public boolean offer(CheckerReport report) {
+        Set<DeviceId> fedDevices = fedDevices(report);
+        synchronized (this) {
+            offered++;
+            long key = keyOf(report.getSliceId(), report.getCheckType());
+            List<Incident> candidates = open.computeIfAbsent(key, k -> new ArrayList<>());
+            for (Incident incident: candidates) {
+                if (incident.isOnPath(report, fedDevices)) {
+                    merged++;
+                    incident.add(report, fedDevices);
+                    return false;
+                }
+            }
+
+            Incident incident = new Incident(report.getSliceId(), report.getCheckType(), report.getTimestamp());
+            incident.add(report, fedDevices);
+            candidates.add(incident);
+            openCount++;
+            incident.timeout = timerWheel.schedule(() -> close(key, incident), windowMillis);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the devices fed by the report's failing egress port.
+     */
+    private Set<DeviceId> fedDevices(CheckerReport report) {
+        Set<DeviceId> devices = new HashSet<>();
+        ConnectPoint egress = new ConnectPoint(report.getDeviceId(), report.getPortNumber());
+        for (Link link: linkService.getEgressLinks(egress)) {
+            devices.add(link.dst().deviceId());
+        }
+        return devices;
+    }
+
+    private void close(long key, Incident incident) {
+        synchronized (this) {
+            List<Incident> candidates = open.get(key);
+            if (candidates == null || !candidates.remove(incident)) {
+                return;
+            }
+            if (candidates.isEmpty()) {
+                open.remove(key);
+            }
+            openCount--;
+            incidents++;
+        }
+        incident.firstHop = firstHop(incident.reports.values());
+        listener.accept(incident);
+    }
+
+    private CheckerReport firstHop(Collection<CheckerReport> reports) {
+        CheckerReport firstHop = null;
+        for (CheckerReport report: reports) {
+            if (isDownstreamOfAny(report, reports)) {
+                continue;
+            }
+            if (firstHop == null || report.getTimestamp() < firstHop.getTimestamp()) {
+                firstHop = report;
+            }
+        }
+        if (firstHop != null) {
+            return firstHop;
+        }
+        // Every reporter is fed by another one (e.g. a loop), fall back to the earliest report
+        for (CheckerReport report: reports) {
+            if (firstHop == null || report.getTimestamp() < firstHop.getTimestamp()) {
+                firstHop = report;
+            }
+        }
+        return firstHop;
+    }
+
+    private boolean isDownstreamOfAny(CheckerReport report, Collection<CheckerReport> reports) {
+        for (CheckerReport other: reports) {
+            if (other == report) {
+                continue;
+            }
+            ConnectPoint egress = new ConnectPoint(other.getDeviceId(), other.getPortNumber());
+            for (Link link: linkService.getEgressLinks(egress)) {
+                if (link.dst().deviceId().equals(report.getDeviceId())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long keyOf(int sliceId, CheckType checkType) {
+        return ((long) sliceId << 8) | checkType.ordinal();
+    }
+
+    /**
+     * Returns the number of reports offered to the correlator.
+     */
+    public synchronized long getOffered() { return this.offered; }
+
+    /**
+     * Returns the number of reports merged into an already open incident.
+     */
+    public synchronized long getMerged() { return this.merged; }
+
+    public synchronized long getIncidents() { return this.incidents; }
+
+    public synchronized int getOpen() { return this.openCount; }
+
+    /**
+     * Returns a consistent snapshot of the counters.
+     *
+     * @return correlator statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(offered, merged, incidents, openCount);
+    }
+
+    /**
+     * Drops all open incidents without emitting them.
+     */
+    public synchronized void clear() {
+        open.values().forEach(candidates -> candidates.forEach(incident -> incident.timeout.cancel()));
+        open.clear();
+        openCount = 0;
+    }
+
+    public static class Stats {
+        private final long offered;
+        private final long merged;
+        private final long incidents;
+        private final int open;
+
+        Stats(long offered, long merged, long incidents, int open) {
+            this.offered = offered;
+            this.merged = merged;
+            this.incidents = incidents;
+            this.open = open;
+        }
+
+        public long getOffered() { return this.offered; }
+
+        public long getMerged() { return this.merged; }
+
+        public long getIncidents() { return this.incidents; }
+
+        public int getOpen() { return this.open; }
+    }
+
+    /**
+     * Reports for one (slice, check type) correlated across the devices of
+     * one path.
+     */
+    public static class Incident {
+        private final int sliceId;
+        private final CheckType checkType;
+        private final long openedAt;
+        private final Map<DeviceId, CheckerReport> reports = new LinkedHashMap<>();
+        private final Set<ConnectPoint> egressPorts = new HashSet<>();
+        private final Set<DeviceId> fedDevices = new HashSet<>();
+        private HashedTimerWheel.Timeout timeout;
+        private CheckerReport firstHop;
+
+        Incident(int sliceId, CheckType checkType, long openedAt) {
+            this.sliceId = sliceId;
+            this.checkType = checkType;
+            this.openedAt = openedAt;
+        }
+
+        private boolean isOnPath(CheckerReport report, Set<DeviceId> reportFedDevices) {
+            if (egressPorts.contains(new ConnectPoint(report.getDeviceId(), report.getPortNumber()))
+                    || fedDevices.contains(report.getDeviceId())) {
+                return true;
+            }
+            for (DeviceId deviceId: reportFedDevices) {
+                if (reports.containsKey(deviceId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(CheckerReport report, Set<DeviceId> reportFedDevices) {
+            reports.putIfAbsent(report.getDeviceId(), report);
+            egressPorts.add(new ConnectPoint(report.getDeviceId(), report.getPortNumber()));
+            fedDevices.addAll(reportFedDevices);
+        }
+
+        public int getSliceId() { return this.sliceId; }
+
+        public CheckType getCheckType() { return this.checkType; }
+
+        public long getOpenedAt() { return this.openedAt; }
+
+        public List<CheckerReport> getReports() { return new ArrayList<>(this.reports.values()); }
+
+        public CheckerReport getFirstHop() { return this.firstHop; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Incident: sliceId=%s, checkType=%s, firstHop=%s/%s, devices=%s",
+                    sliceId, checkType, firstHop.getDeviceId(), firstHop.getPortNumber(), reports.keySet());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.onosproject.tpc.report;
+
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.journal.ReportJournal;
+import org.onosproject.tpc.mitigation.MitigationEngine;
+
+import java.util.function.Consumer;
+
+/**
+ * Report path after decoding: journal, suppress, mitigate and deliver.
+ * The journal, the mitigation engine and the correlator are optional, so
+ * that journal replays and load runs can use a pipeline of their own that
+ * does not touch the live journal, mitigations or incidents.
+ */
+public class ReportPipeline {
+    private final ReportJournal journal;
+    private final ReportSuppressor suppressor;
+    private final MitigationEngine mitigationEngine;
+    private final ReportCorrelator correlator;
+    private final Consumer<CheckerReport> sink;
+    private final ReportPipelineStats stats;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param journal journal to append to, or null
+     * @param suppressor dedup stage
+     * @param mitigationEngine mitigation engine, or null
+     * @param correlator correlator fed with unique reports, or null
+     * @param sink consumer of unique reports
+     * @param stats per-stage latency
+     */
+    public ReportPipeline(ReportJournal journal, ReportSuppressor suppressor, MitigationEngine mitigationEngine,
+                          ReportCorrelator correlator, Consumer<CheckerReport> sink, ReportPipelineStats stats) {
+        this.journal = journal;
+        this.suppressor = suppressor;
+        this.mitigationEngine = mitigationEngine;
+        this.correlator = correlator;
+        this.sink = sink;
+        this.stats = stats;
+    }
+
+    /**
+     * Runs a decoded report through the pipeline.
+     *
+     * @param report translated report
+     * @param receivedNanos System.nanoTime() at which the report was received
+     */
+    public void offer(CheckerReport report, long receivedNanos) {
+        boolean timed = stats.isEnabled();
+        long t = timed ? System.nanoTime() : 0;
+
+        if (journal != null) {
+            journal.append(report);
+        }
+        if (timed) {
+            t = stats.lap(ReportPipelineStats.Stage.JOURNAL, t);
+        }
+
+        boolean unique = suppressor.offer(report);
+        if (timed) {
+            t = stats.lap(ReportPipelineStats.Stage.SUPPRESS, t);
+        }
+
+        if (mitigationEngine != null) {
+            mitigationEngine.onReport(report, suppressor.estimate(report), receivedNanos);
+        }
+        if (timed) {
+            t = stats.lap(ReportPipelineStats.Stage.MITIGATE, t);
+        }
+
+        if (unique) {
+            sink.accept(report);
+            if (correlator != null) {
+                correlator.offer(report);
+            }
+        }
+        if (timed) {
+            stats.lap(ReportPipelineStats.Stage.DELIVER, t);
+            stats.record(ReportPipelineStats.Stage.TOTAL, System.nanoTime() - receivedNanos);
+        }
+    }
+
+    public ReportSuppressor getSuppressor() { return this.suppressor; }
+
+    public ReportCorrelator getCorrelator() { return this.correlator; }
+
+    public ReportPipelineStats getStats() { return this.stats; }
+}
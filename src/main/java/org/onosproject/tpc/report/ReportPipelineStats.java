@@ -0,0 +1,80 @@
+package org.onosproject.tpc.report;
+
+import org.onosproject.tpc.common.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-stage latency of the report pipeline, and the number of reports
+ * dropped before entering it. Latency recording is off by default and only
+ * enabled while measuring, so the normal report path does not pay for the
+ * extra clock reads.
+ */
+public class ReportPipelineStats {
+    public enum Stage {
+        DECODE,
+        JOURNAL,
+        SUPPRESS,
+        MITIGATE,
+        DELIVER,
+        TOTAL
+    }
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean enabled;
+
+    public ReportPipelineStats() {
+        for (Stage stage: Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} for the stage.
+     *
+     * @param stage pipeline stage
+     * @param startNanos System.nanoTime() at which the stage started
+     * @return System.nanoTime() at which the stage ended
+     */
+    public long lap(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        histograms.get(stage).record(now - startNanos);
+        return now;
+    }
+
+    public LatencyHistogram get(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    /**
+     * Counts a report dropped before the pipeline, because it was malformed
+     * or carried an unallocated slice index.
+     */
+    public void recordDrop() {
+        dropped.increment();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        dropped.reset();
+    }
+}
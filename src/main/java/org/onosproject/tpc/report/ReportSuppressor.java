@@ -0,0 +1,115 @@
+package org.onosproject.tpc.report;
+
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.util.List;
+
+/**
+ * Streaming dedup stage for checker reports. Forwards the first report per
+ * (device, port, slice, check type) in each window and suppresses the rest, so a
+ * persistent violation is forwarded again once per window, while keeping
+ * per-key counts and heavy hitters for the periodic summary. Memory is
+ * bounded by the sketch sizes, not by the number of distinct keys.
+ */
+public class ReportSuppressor {
+    private final WindowedBloomFilter seen;
+    private final CountMinSketch counts;
+    private final HeavyHitters heavyHitters;
+
+    private long received;
+    private long forwarded;
+    private long windowStart;
+    private Summary lastSummary;
+
+    public ReportSuppressor(int bloomBits, int bloomHashes, int sketchDepth, int sketchWidth, int topK) {
+        this.seen = new WindowedBloomFilter(bloomBits, bloomHashes);
+        this.counts = new CountMinSketch(sketchDepth, sketchWidth);
+        this.heavyHitters = new HeavyHitters(topK);
+        this.windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Accounts for a report and decides whether it is forwarded downstream.
+     *
+     * @param report decoded report
+     * @return true if the report is the first of its key in the window
+     */
+    public synchronized boolean offer(CheckerReport report) {
+        long key = report.key();
+        received++;
+        counts.add(key);
+        heavyHitters.offer(key, report);
+        if (seen.mightContainOrAdd(key)) {
+            return false;
+        }
+        forwarded++;
+        return true;
+    }
+
+    /**
+     * Returns the estimated number of reports for the key of the given
+     * report in the current window.
+     *
+     * @param report decoded report
+     * @return estimated count
+     */
+    public synchronized long estimate(CheckerReport report) {
+        return counts.estimate(report.key());
+    }
+
+    /**
+     * Closes the current window and returns its summary.
+     *
+     * @return summary of the closed window
+     */
+    public synchronized Summary rotate() {
+        long now = System.currentTimeMillis();
+        lastSummary = new Summary(windowStart, now, received, forwarded, heavyHitters.top());
+        received = 0;
+        forwarded = 0;
+        windowStart = now;
+        counts.clear();
+        heavyHitters.clear();
+        seen.rotate();
+        return lastSummary;
+    }
+
+    public synchronized Summary lastSummary() {
+        return lastSummary;
+    }
+
+    public static class Summary {
+        private final long start;
+        private final long end;
+        private final long received;
+        private final long forwarded;
+        private final List<HeavyHitters.Counter> heavyHitters;
+
+        Summary(long start, long end, long received, long forwarded, List<HeavyHitters.Counter> heavyHitters) {
+            this.start = start;
+            this.end = end;
+            this.received = received;
+            this.forwarded = forwarded;
+            this.heavyHitters = heavyHitters;
+        }
+
+        public long getStart() { return this.start; }
+
+        public long getEnd() { return this.end; }
+
+        public long getReceived() { return this.received; }
+
+        public long getForwarded() { return this.forwarded; }
+
+        public long getSuppressed() { return this.received - this.forwarded; }
+
+        public List<HeavyHitters.Counter> getHeavyHitters() { return this.heavyHitters; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "ReportSummary: received=%s, forwarded=%s, suppressed=%s, heavyHitters=%s",
+                    received, forwarded, getSuppressed(), heavyHitters);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.onosproject.tpc.report;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over a tumbling window. A key is considered seen if it was
+ * added since the last {@link #rotate()}, so each key is reported as new
+ * at most once per window, give or take false positives.
+ */
+public class WindowedBloomFilter {
+    private final int numBits;
+    private final int numHashes;
+    private final long[] bits;
+
+    public WindowedBloomFilter(int numBits, int numHashes) {
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.bits = new long[(numBits + 63) / 64];
+    }
+
+    /**
+     * Adds the key to the current window.
+     *
+     * @param key 64-bit key hash
+     * @return true if the key may already have been added in this window
+     */
+    public boolean mightContainOrAdd(long key) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32);
+        boolean seen = true;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                seen = false;
+                bits[word] |= mask;
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Starts a new window; all keys are forgotten.
+     */
+    public void rotate() {
+        Arrays.fill(bits, 0L);
+    }
+}
@@ -1,29 +1,61 @@
 package org.onosproject.tpc.rest;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
 import org.onlab.packet.Ip4Address;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
 import org.onosproject.rest.AbstractWebResource;
 import org.onosproject.tpc.TPCService;
+import org.onosproject.tpc.common.CheckType;
 import org.onosproject.tpc.common.CheckerSliceIdEntry;
 import org.onosproject.tpc.common.ExfiltrationAttackEntry;
 import org.onosproject.tpc.common.SliceQoSEntry;
+import org.onosproject.tpc.event.EventBroker;
+import org.onosproject.tpc.event.TPCEvent;
+import org.onosproject.tpc.journal.ReportJournal;
+import org.onosproject.tpc.load.LoadConfig;
+import org.onosproject.tpc.load.LoadResult;
+import org.onosproject.tpc.load.LoadRun;
+import org.onosproject.tpc.mitigation.Mitigation;
+import org.onosproject.tpc.mitigation.MitigationEngine;
+import org.onosproject.tpc.profile.ConfigProfile;
+import org.onosproject.tpc.program.ProgrammingScheduler;
+import org.onosproject.tpc.report.HeavyHitters;
+import org.onosproject.tpc.report.ReportCorrelator;
+import org.onosproject.tpc.report.ReportSuppressor;
+import org.onosproject.tpc.verify.Finding;
+import org.onosproject.tpc.verify.IsolationVerifier;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.onlab.util.Tools.readTreeFromStream;
+import static org.onosproject.tpc.AppConstants.EVENT_BUFFER_SIZE;
+import static org.onosproject.tpc.AppConstants.EVENT_KEEPALIVE;
 
 @Path("tpc")
 public class TPCWebResource extends AbstractWebResource {
+    private static final String SSE_MEDIA_TYPE = "text/event-stream";
+    private static final Set<String> PROFILE_KEYS = ImmutableSet.of("sliceIds", "sliceQos", "attackEntries");
+
     @GET
     @Path("flush")
     public Response flushFlowRules() {
@@ -45,6 +77,378 @@ public class TPCWebResource extends AbstractWebResource {
         return Response.noContent().build();
     }
 
+    /**
+     * Enable checking on a set of devices for a set of check types. Body
+     * example: {"devices": ["device:leaf1"], "checks": ["iso", "qos"]}.
+     * Missing or empty "devices" means all available devices; missing or
+     * empty "checks" means all check types.
+     *
+     * @return 204 NoContent, or 400 Bad Request for an unknown check type
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("enable_checking")
+    public Response enableChecking(InputStream stream) {
+        JsonNode node = readJson(stream);
+        Set<CheckType> checkTypes;
+        try {
+            checkTypes = jsonToCheckTypes(node);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        get(TPCService.class).enableChecking(jsonToDeviceIds(node), checkTypes);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Disable checking on a set of devices for a set of check types. Same
+     * body format as enable_checking.
+     *
+     * @return 204 NoContent, or 400 Bad Request for an unknown check type
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Path("disable_checking")
+    public Response disableChecking(InputStream stream) {
+        JsonNode node = readJson(stream);
+        Set<CheckType> checkTypes;
+        try {
+            checkTypes = jsonToCheckTypes(node);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        get(TPCService.class).disableChecking(jsonToDeviceIds(node), checkTypes);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Get the check types enabled on each device.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("checking_state")
+    public Response getCheckingState() {
+        ObjectNode root = mapper().createObjectNode();
+        get(TPCService.class).getCheckingState().forEach((deviceId, checkTypes) -> {
+            ArrayNode checks = root.putArray(deviceId.toString());
+            checkTypes.forEach(checkType -> checks.add(checkType.name().toLowerCase()));
+        });
+        return ok(root).build();
+    }
+
+    /**
+     * Get the checker report summary of the last window: received and
+     * suppressed counts, the heaviest (device, port, slice) keys and the
+     * cross-device correlation counters.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("report_summary")
+    public Response getReportSummary() {
+        ObjectNode root = mapper().createObjectNode();
+        ReportSuppressor.Summary summary = get(TPCService.class).getReportSummary();
+        if (summary != null) {
+            root.put("start", summary.getStart());
+            root.put("end", summary.getEnd());
+            root.put("received", summary.getReceived());
+            root.put("forwarded", summary.getForwarded());
+            root.put("suppressed", summary.getSuppressed());
+            ArrayNode heavyHitters = root.putArray("heavyHitters");
+            for (HeavyHitters.Counter counter: summary.getHeavyHitters()) {
+                heavyHitters.addObject()
+                        .put("deviceId", counter.getSample().getDeviceId().toString())
+                        .put("portNumber", counter.getSample().getPortNumber().toString())
+                        .put("sliceId", counter.getSample().getSliceId())
+                        .put("count", counter.getCount())
+                        .put("error", counter.getError());
+            }
+        }
+        root.put("unmapped", get(TPCService.class).getUnmappedReports());
+        ReportCorrelator.Stats correlation = get(TPCService.class).getCorrelationStats();
+        root.putObject("correlation")
+                .put("offered", correlation.getOffered())
+                .put("merged", correlation.getMerged())
+                .put("incidents", correlation.getIncidents())
+                .put("open", correlation.getOpen());
+        return ok(root).build();
+    }
+
+    @GET
+    @Path("enable_mitigation")
+    public Response enableMitigation() {
+        get(TPCService.class).setMitigationEnabled(true);
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("disable_mitigation")
+    public Response disableMitigation() {
+        get(TPCService.class).setMitigationEnabled(false);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Get mitigation counters, report-to-mitigation latency and the active
+     * mitigations.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("mitigation_stats")
+    public Response getMitigationStats() {
+        MitigationEngine.Stats stats = get(TPCService.class).getMitigationStats();
+        long[] latency = stats.getLatency();
+
+        ObjectNode root = mapper().createObjectNode();
+        root.put("enabled", stats.isEnabled());
+        root.put("installed", stats.getInstalled());
+        root.put("expired", stats.getExpired());
+        root.put("rateLimited", stats.getRateLimited());
+        root.put("skipped", stats.getSkipped());
+        root.putObject("latencyMicros")
+                .put("p50", latency[0] / 1000)
+                .put("p90", latency[1] / 1000)
+                .put("p99", latency[2] / 1000)
+                .put("max", latency[3] / 1000);
+        ArrayNode active = root.putArray("active");
+        for (Mitigation mitigation: stats.getActive()) {
+            active.addObject()
+                    .put("deviceId", mitigation.getReport().getDeviceId().toString())
+                    .put("portNumber", mitigation.getReport().getPortNumber().toString())
+                    .put("sliceId", mitigation.getReport().getSliceId())
+                    .put("checkType", mitigation.getReport().getCheckType().name().toLowerCase())
+                    .put("expiresAt", mitigation.getExpiresAt());
+        }
+        return ok(root).build();
+    }
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("journal_stats")
+    public Response getJournalStats() {
+        ReportJournal.Stats stats = get(TPCService.class).getJournalStats();
+        ObjectNode root = mapper().createObjectNode();
+        root.put("directory", stats.getDirectory().toString());
+        root.put("written", stats.getWritten());
+        root.put("dropped", stats.getDropped());
+        return ok(root).build();
+    }
+
+    /**
+     * Replay the report journal through the report pipeline.
+     *
+     * @param speed replay speed relative to the original pace, 0 for as fast as possible
+     * @return 204 NoContent
+     */
+    @GET
+    @Path("replay_journal")
+    public Response replayJournal(@DefaultValue("1") @QueryParam("speed") double speed) {
+        get(TPCService.class).replayJournal(speed);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Stream violation, mitigation and programming events as Server-Sent
+     * Events. Each subscriber has a bounded buffer; when it overflows,
+     * events are dropped and a "dropped" event carries the total count.
+     * Each event carries its publication time as "publishedAt"; reports keep
+     * their own "timestamp".
+     *
+     * @return 200 OK with a text/event-stream body
+     */
+    @GET
+    @Produces(SSE_MEDIA_TYPE)
+    @Path("events")
+    public Response streamEvents() {
+        EventBroker.Subscription subscription;
+        try {
+            subscription = get(TPCService.class).subscribeEvents(EVENT_BUFFER_SIZE);
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
+        }
+
+        StreamingOutput stream = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            long reportedDropped = 0;
+            try (EventBroker.Subscription s = subscription) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    TPCEvent event = s.poll(EVENT_KEEPALIVE, TimeUnit.MILLISECONDS);
+                    long dropped = s.getDropped();
+                    if (dropped != reportedDropped) {
+                        writer.write("event: dropped\ndata: {\"dropped\":" + dropped + "}\n\n");
+                        reportedDropped = dropped;
+                    }
+                    if (event == null) {
+                        writer.write(": keepalive\n\n");
+                    } else {
+                        ObjectNode data = event.getData().deepCopy();
+                        data.put("publishedAt", event.getTimestamp());
+                        writer.write("event: " + event.getType().name().toLowerCase() + "\n");
+                        writer.write("data: " + mapper().writeValueAsString(data) + "\n\n");
+                    }
+                    writer.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return Response.ok(stream).header("Cache-Control", "no-cache").build();
+    }
+
+    /**
+     * Get the devices that are available and run a TPC-capable pipeconf.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("tpc_devices")
+    public Response getTpcDevices() {
+        ObjectNode root = mapper().createObjectNode();
+        ArrayNode devices = root.putArray("devices");
+        get(TPCService.class).getTpcDevices().forEach(deviceId -> devices.add(deviceId.toString()));
+        return ok(root).build();
+    }
+
+    /**
+     * Get the number of queued and in-flight programming batches per device.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("programming_state")
+    public Response getProgrammingState() {
+        ProgrammingScheduler.Stats stats = get(TPCService.class).getProgrammingStats();
+        ObjectNode root = mapper().createObjectNode();
+        root.put("completed", stats.getCompleted());
+        root.put("failed", stats.getFailed());
+        root.put("timedOut", stats.getTimedOut());
+        root.put("cancelled", stats.getCancelled());
+        ObjectNode devices = root.putObject("devices");
+        stats.getState().forEach((deviceId, state) -> devices.putObject(deviceId.toString())
+                .put("queued", state[0])
+                .put("inFlight", state[1]));
+        return ok(root).build();
+    }
+
+    /**
+     * Start a checker-report load test in the background. Body example:
+     * {"rate": 50000, "duration": 10000, "threads": 2, "devices": 8,
+     *  "ports": 32, "slices": 16, "keys": 4096, "distribution": "zipf",
+     *  "zipfExponent": 1.1, "seed": 1}. All fields are optional. The run
+     * uses a report pipeline of its own and does not affect live state.
+     *
+     * @return 202 Accepted, 400 Bad Request for an invalid config, or 409
+     *         Conflict if a load test is running
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("load_test")
+    public Response startLoadTest(InputStream stream) {
+        LoadConfig config;
+        try {
+            JsonNode node = readJson(stream);
+            config = new LoadConfig(
+                    node.path("rate").asLong(10000),
+                    node.path("duration").asLong(10000),
+                    node.path("threads").asInt(1),
+                    node.path("devices").asInt(4),
+                    node.path("ports").asInt(32),
+                    node.path("slices").asInt(8),
+                    node.path("keys").asInt(1024),
+                    LoadConfig.Distribution.valueOf(node.path("distribution").asText("uniform").toUpperCase()),
+                    node.path("zipfExponent").asDouble(1.0),
+                    node.path("seed").asLong(1));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        LoadRun run;
+        try {
+            run = get(TPCService.class).startLoadTest(config);
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        return Response.status(Response.Status.ACCEPTED).entity(loadRunToJson(run)).build();
+    }
+
+    /**
+     * Get the state of the running or last load test, with its result once
+     * done.
+     *
+     * @return 200 OK, or 404 Not Found if no load test was started
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("load_test")
+    public Response getLoadTest() {
+        LoadRun run = get(TPCService.class).getLoadTest();
+        if (run == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return ok(loadRunToJson(run)).build();
+    }
+
+    private ObjectNode loadRunToJson(LoadRun run) {
+        ObjectNode root = mapper().createObjectNode();
+        root.put("state", run.getState().name().toLowerCase());
+        root.put("config", run.getConfig().toString());
+        root.put("startedAt", run.getStartedAt());
+        if (run.getError() != null) {
+            root.put("error", run.getError());
+        }
+        LoadResult result = run.getResult();
+        if (result == null) {
+            return root;
+        }
+        root.put("offered", result.getOffered());
+        root.put("handled", result.getHandled());
+        root.put("dropped", result.getDropped());
+        root.put("lagged", result.getLagged());
+        root.put("elapsedMs", result.getElapsed());
+        root.put("throughput", result.getThroughput());
+        root.put("allocatedBytes", result.getAllocatedBytes());
+        root.put("allocationRate", result.getAllocationRate());
+        ObjectNode stages = root.putObject("latencyMicros");
+        result.getStageLatencies().forEach((stage, latency) -> stages.putObject(stage.name().toLowerCase())
+                .put("p50", latency[0] / 1000.0)
+                .put("p90", latency[1] / 1000.0)
+                .put("p99", latency[2] / 1000.0)
+                .put("max", latency[3] / 1000.0));
+        return root;
+    }
+
+    private JsonNode readJson(InputStream stream) throws IllegalArgumentException {
+        try {
+            return readTreeFromStream(mapper(), stream);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to parse request", e);
+        }
+    }
+
+    private Set<DeviceId> jsonToDeviceIds(JsonNode node) {
+        Set<DeviceId> deviceIds = new HashSet<>();
+        for (JsonNode deviceNode: node.path("devices")) {
+            deviceIds.add(DeviceId.deviceId(deviceNode.asText()));
+        }
+        return deviceIds;
+    }
+
+    private Set<CheckType> jsonToCheckTypes(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode checkNode: node.path("checks")) {
+            names.add(checkNode.asText());
+        }
+        return CheckType.fromStrings(names);
+    }
+
     /**
      * Post attack entry.
      *
@@ -60,8 +464,6 @@ public class TPCWebResource extends AbstractWebResource {
     }
 
     private List<ExfiltrationAttackEntry> jsonToAttackEntries(InputStream stream) throws IllegalArgumentException {
-        List<ExfiltrationAttackEntry> attackEntries = new ArrayList<>();
-
         JsonNode node;
         try {
             node = readTreeFromStream(mapper(), stream);
@@ -69,6 +471,12 @@ public class TPCWebResource extends AbstractWebResource {
             throw new IllegalArgumentException("Unable to parse add request", e);
         }
 
+        return jsonToAttackEntries(node);
+    }
+
+    private List<ExfiltrationAttackEntry> jsonToAttackEntries(JsonNode node) {
+        List<ExfiltrationAttackEntry> attackEntries = new ArrayList<>();
+
         Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
         while (fields.hasNext()) {
             Map.Entry<String, JsonNode> field = fields.next();
@@ -107,9 +515,153 @@ public class TPCWebResource extends AbstractWebResource {
         return Response.noContent().build();
     }
 
-    private List<CheckerSliceIdEntry> jsonToCheckerSliceIdEntries(InputStream stream) throws IllegalArgumentException {
-        List<CheckerSliceIdEntry> checkerSliceIdEntries = new ArrayList<>();
+    /**
+     * Check checker slice id entries against the isolation model without
+     * programming them.
+     *
+     * @return 200 OK with the findings
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("verify_slice_id")
+    public Response verifyCheckerSliceIds(InputStream stream) {
+        List<CheckerSliceIdEntry> checkerSliceIdEntries = jsonToCheckerSliceIdEntries(stream);
+        ObjectNode root = mapper().createObjectNode();
+        findingsToJson(root.putArray("findings"),
+                get(TPCService.class).verifyCheckerSliceIdEntries(checkerSliceIdEntries));
+        return ok(root).build();
+    }
 
+    private void findingsToJson(ArrayNode findings, List<Finding> list) {
+        for (Finding finding: list) {
+            findings.addObject()
+                    .put("type", finding.getType().name().toLowerCase())
+                    .put("blocking", finding.isBlocking())
+                    .put("deviceId", finding.getEntry().getDeviceId())
+                    .put("portNumber", finding.getEntry().getPortNumber().toString())
+                    .put("sliceId", finding.getEntry().getSliceId())
+                    .put("message", finding.getMessage());
+        }
+    }
+
+    /**
+     * Upload a named configuration profile. The body holds the three entry
+     * maps in the add_slice_id, add_slice_qos and add_attack formats:
+     * {"sliceIds": {...}, "sliceQos": {...}, "attackEntries": {...}}.
+     * All three maps are required, and no other keys are accepted. The
+     * profile is stored only if its slice ids have no blocking findings.
+     *
+     * @return 200 OK with the findings, or 400 BadRequest if the body is malformed
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("profiles/{name}")
+    public Response putProfile(@PathParam("name") String name, InputStream stream) {
+        JsonNode node = readJson(stream);
+        Set<String> keys = new HashSet<>();
+        node.fieldNames().forEachRemaining(keys::add);
+        if (!node.isObject() || !keys.equals(PROFILE_KEYS)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Profile must hold exactly the keys " + PROFILE_KEYS + ", got " + keys).build();
+        }
+        ConfigProfile profile = new ConfigProfile(name,
+                jsonToCheckerSliceIdEntries(node.path("sliceIds")),
+                jsonToSliceQosEntries(node.path("sliceQos")),
+                jsonToAttackEntries(node.path("attackEntries")));
+        List<Finding> findings = get(TPCService.class).putProfile(profile);
+        ObjectNode root = mapper().createObjectNode();
+        root.put("name", name);
+        root.put("stored", findings.stream().noneMatch(Finding::isBlocking));
+        findingsToJson(root.putArray("findings"), findings);
+        return ok(root).build();
+    }
+
+    /**
+     * Get the stored configuration profiles and the active one.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("profiles")
+    public Response getProfiles() {
+        TPCService service = get(TPCService.class);
+        ObjectNode root = mapper().createObjectNode();
+        root.put("active", service.getActiveProfile());
+        ObjectNode profiles = root.putObject("profiles");
+        service.getProfiles().forEach((name, profile) -> profiles.putObject(name)
+                .put("sliceIds", profile.getSliceIdEntries().size())
+                .put("sliceQos", profile.getSliceQoSEntries().size())
+                .put("attackEntries", profile.getAttackEntries().size()));
+        return ok(root).build();
+    }
+
+    /**
+     * Switch to a stored configuration profile, programming only what
+     * differs from the current configuration. Returns once the new entries
+     * are programmed; the entries the profile drops are removed afterwards.
+     *
+     * @return 204 NoContent, 404 NotFound if there is no such profile, or
+     *         409 Conflict if the profile is no longer valid or could not be
+     *         programmed, in which case the previous configuration is restored
+     */
+    @POST
+    @Path("profiles/{name}/activate")
+    public Response activateProfile(@PathParam("name") String name) {
+        try {
+            get(TPCService.class).activateProfile(name);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * Delete a stored configuration profile that is not active.
+     *
+     * @return 204 NoContent, or 409 Conflict if the profile is active
+     */
+    @DELETE
+    @Path("profiles/{name}")
+    public Response removeProfile(@PathParam("name") String name) {
+        try {
+            get(TPCService.class).removeProfile(name);
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * Get the isolation model: flagged ports and slices, and how many
+     * incidents it classified as expected or anomalous.
+     *
+     * @return 200 OK
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("isolation_state")
+    public Response getIsolationState() {
+        IsolationVerifier.State state = get(TPCService.class).getIsolationState();
+        ObjectNode root = mapper().createObjectNode();
+        root.put("slices", state.getSlices());
+        root.put("assignments", state.getAssignments());
+        root.put("expected", state.getExpected());
+        root.put("anomalous", state.getAnomalous());
+        ArrayNode leakingPorts = root.putArray("leakingPorts");
+        state.getLeakingPorts().forEach(cp -> leakingPorts.add(cp.toString()));
+        ArrayNode partitionedSlices = root.putArray("partitionedSlices");
+        state.getPartitionedSlices().forEach(partitionedSlices::add);
+        ArrayNode exposedSlices = root.putArray("exposedSlices");
+        state.getExposedSlices().forEach(exposedSlices::add);
+        return ok(root).build();
+    }
+
+    private List<CheckerSliceIdEntry> jsonToCheckerSliceIdEntries(InputStream stream) throws IllegalArgumentException {
         JsonNode node;
         try {
             node = readTreeFromStream(mapper(), stream);
@@ -117,6 +669,12 @@ public class TPCWebResource extends AbstractWebResource {
             throw new IllegalArgumentException("Unable to parse add request", e);
         }
 
+        return jsonToCheckerSliceIdEntries(node);
+    }
+
+    private List<CheckerSliceIdEntry> jsonToCheckerSliceIdEntries(JsonNode node) {
+        List<CheckerSliceIdEntry> checkerSliceIdEntries = new ArrayList<>();
+
         Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
         while (fields.hasNext()) {
             Map.Entry<String, JsonNode> field = fields.next();
@@ -128,7 +686,7 @@ public class TPCWebResource extends AbstractWebResource {
 
             if (deviceIdStr != null && portNumberStr != null && sliceIdStr != null) {
                 PortNumber portNumber = PortNumber.fromString(portNumberStr);
-                Byte sliceId = Byte.valueOf(sliceIdStr);
+                int sliceId = Integer.parseInt(sliceIdStr);
 
                 checkerSliceIdEntries.add(new CheckerSliceIdEntry(deviceIdStr, portNumber, sliceId));
             }
@@ -152,8 +710,6 @@ public class TPCWebResource extends AbstractWebResource {
     }
 
     private List<SliceQoSEntry> jsonToSliceQosEntries(InputStream stream) throws IllegalArgumentException {
-        List<SliceQoSEntry> sliceQoSEntries = new ArrayList<>();
-
         JsonNode node;
         try {
             node = readTreeFromStream(mapper(), stream);
@@ -161,6 +717,12 @@ public class TPCWebResource extends AbstractWebResource {
             throw new IllegalArgumentException("Unable to parse add request", e);
         }
 
+        return jsonToSliceQosEntries(node);
+    }
+
+    private List<SliceQoSEntry> jsonToSliceQosEntries(JsonNode node) {
+        List<SliceQoSEntry> sliceQoSEntries = new ArrayList<>();
+
         Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
         while (fields.hasNext()) {
             Map.Entry<String, JsonNode> field = fields.next();
@@ -170,7 +732,7 @@ public class TPCWebResource extends AbstractWebResource {
             String pirStr = subNode.path("pir").asText(null);
 
             if (sliceIdStr != null && pirStr != null) {
-                byte sliceId = Byte.valueOf(sliceIdStr);
+                int sliceId = Integer.parseInt(sliceIdStr);
                 long pir = Long.valueOf(pirStr);
 
                 sliceQoSEntries.add(new SliceQoSEntry(sliceId, pir));
@@ -0,0 +1,179 @@
+package org.onosproject.tpc.store;
+
+import org.onosproject.net.DeviceId;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Packed store of exfiltration attack entries. Each entry is a 20-byte
+ * record in an off-heap buffer: device index (4), matched IPv4 pair (8),
+ * rewritten IPv4 pair (8), where a pair is packed as src &lt;&lt; 32 | dst.
+ * A per-device primitive map indexes records by their matched pair, which
+ * is the key of the attack table.
+ */
+public class AttackEntryStore {
+    private static final int RECORD_SIZE = 20;
+
+    /**
+     * Callback for {@link #forEach(Visitor)}.
+     */
+    public interface Visitor {
+        void accept(DeviceId deviceId, int srcAddress, int dstAddress, int srcAddressRewritten, int dstAddressRewritten);
+    }
+
+    private final DeviceIndex deviceIndex;
+    private final List<LongIntHashMap> slotsByDevice = new ArrayList<>();
+    private ByteBuffer records;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int nextSlot;
+    private int size;
+
+    public AttackEntryStore(DeviceIndex deviceIndex, int initialCapacity) {
+        this.deviceIndex = deviceIndex;
+        this.records = ByteBuffer.allocateDirect(Math.max(1, initialCapacity) * RECORD_SIZE);
+    }
+
+    public static long pack(int src, int dst) {
+        return ((long) src << 32) | (dst & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Stores an entry.
+     *
+     * @return true if the entry is new or its rewrite changed
+     */
+    public synchronized boolean put(DeviceId deviceId, int srcAddress, int dstAddress,
+                                    int srcAddressRewritten, int dstAddressRewritten) {
+        int device = deviceIndex.intern(deviceId);
+        LongIntHashMap slots = slotsOf(device, true);
+        long match = pack(srcAddress, dstAddress);
+        long rewrite = pack(srcAddressRewritten, dstAddressRewritten);
+
+        int slot = slots.get(match);
+        if (slot != LongIntHashMap.NO_VALUE) {
+            int offset = slot * RECORD_SIZE;
+            if (records.getLong(offset + 12) == rewrite) {
+                return false;
+            }
+            records.putLong(offset + 12, rewrite);
+            return true;
+        }
+
+        slot = allocateSlot();
+        int offset = slot * RECORD_SIZE;
+        records.putInt(offset, device);
+        records.putLong(offset + 4, match);
+        records.putLong(offset + 12, rewrite);
+        slots.put(match, slot);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the entry matching the given addresses.
+     *
+     * @return true if an entry was removed
+     */
+    public synchronized boolean remove(DeviceId deviceId, int srcAddress, int dstAddress) {
+        int device = deviceIndex.indexOf(deviceId);
+        LongIntHashMap slots = device < 0 ? null : slotsOf(device, false);
+        if (slots == null) {
+            return false;
+        }
+        int slot = slots.remove(pack(srcAddress, dstAddress));
+        if (slot == LongIntHashMap.NO_VALUE) {
+            return false;
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the packed rewritten pair of the entry matching the given
+     * addresses. Every pair is a valid rewrite, so absence is reported
+     * separately rather than by a sentinel value.
+     *
+     * @return rewritten pair, or empty if there is no such entry
+     */
+    public synchronized OptionalLong getRewrite(DeviceId deviceId, int srcAddress, int dstAddress) {
+        int device = deviceIndex.indexOf(deviceId);
+        LongIntHashMap slots = device < 0 ? null : slotsOf(device, false);
+        if (slots == null) {
+            return OptionalLong.empty();
+        }
+        int slot = slots.get(pack(srcAddress, dstAddress));
+        return slot == LongIntHashMap.NO_VALUE
+                ? OptionalLong.empty() : OptionalLong.of(records.getLong(slot * RECORD_SIZE + 12));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int sizeOf(DeviceId deviceId) {
+        int device = deviceIndex.indexOf(deviceId);
+        LongIntHashMap slots = device < 0 ? null : slotsOf(device, false);
+        return slots == null ? 0 : slots.size();
+    }
+
+    public synchronized void forEach(Visitor visitor) {
+        for (int device = 0; device < slotsByDevice.size(); device++) {
+            LongIntHashMap slots = slotsByDevice.get(device);
+            if (slots == null) {
+                continue;
+            }
+            DeviceId deviceId = deviceIndex.deviceId(device);
+            slots.forEach((match, slot) -> {
+                long rewrite = records.getLong(slot * RECORD_SIZE + 12);
+                visitor.accept(deviceId, (int) (match >>> 32), (int) match,
+                        (int) (rewrite >>> 32), (int) rewrite);
+            });
+        }
+    }
+
+    public synchronized void clear() {
+        slotsByDevice.clear();
+        freeCount = 0;
+        nextSlot = 0;
+        size = 0;
+    }
+
+    private LongIntHashMap slotsOf(int device, boolean create) {
+        while (create && slotsByDevice.size() <= device) {
+            slotsByDevice.add(null);
+        }
+        if (device >= slotsByDevice.size()) {
+            return null;
+        }
+        LongIntHashMap slots = slotsByDevice.get(device);
+        if (slots == null && create) {
+            slots = new LongIntHashMap(64);
+            slotsByDevice.set(device, slots);
+        }
+        return slots;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if ((nextSlot + 1) * RECORD_SIZE > records.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(records.capacity() * 2);
+            ByteBuffer old = records.duplicate();
+            old.clear();
+            grown.put(old);
+            grown.clear();
+            records = grown;
+        }
+        return nextSlot++;
+    }
+}
@@ -0,0 +1,52 @@
+package org.onosproject.tpc.store;
+
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns device ids into small dense integers so that stores can key
+ * entries by primitive values instead of DeviceId or String objects.
+ * Indexes are never reused.
+ */
+public class DeviceIndex {
+    private final Map<DeviceId, Integer> indexes = new HashMap<>();
+    private final List<DeviceId> deviceIds = new ArrayList<>();
+
+    /**
+     * Returns the index of the device, interning it if needed.
+     *
+     * @param deviceId device id
+     * @return device index
+     */
+    public synchronized int intern(DeviceId deviceId) {
+        Integer index = indexes.get(deviceId);
+        if (index == null) {
+            index = deviceIds.size();
+            deviceIds.add(deviceId);
+            indexes.put(deviceId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the device, or -1 if it was never interned.
+     *
+     * @param deviceId device id
+     * @return device index
+     */
+    public synchronized int indexOf(DeviceId deviceId) {
+        return indexes.getOrDefault(deviceId, -1);
+    }
+
+    public synchronized DeviceId deviceId(int index) {
+        return deviceIds.get(index);
+    }
+
+    public synchronized int size() {
+        return deviceIds.size();
+    }
+}
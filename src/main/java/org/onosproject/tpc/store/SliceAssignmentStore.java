@@ -0,0 +1,121 @@
+package org.onosproject.tpc.store;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+
+/**
+ * Packed store of port to slice assignments, keyed by
+ * device index &lt;&lt; 32 | port number. A second map counts the ports
+ * of each (device, slice), so slice usage checks are O(1).
+ */
+public class SliceAssignmentStore {
+    /**
+     * Callback for {@link #forEach(Visitor)}.
+     */
+    public interface Visitor {
+        void accept(DeviceId deviceId, PortNumber portNumber, int sliceId);
+    }
+
+    private final DeviceIndex deviceIndex;
+    private final LongIntHashMap assignments;
+    private final LongIntHashMap portCounts;
+
+    public SliceAssignmentStore(DeviceIndex deviceIndex, int expectedSize) {
+        this.deviceIndex = deviceIndex;
+        this.assignments = new LongIntHashMap(expectedSize);
+        this.portCounts = new LongIntHashMap(expectedSize);
+    }
+
+    private static long key(int device, PortNumber portNumber) {
+        return ((long) device << 32) | (portNumber.toLong() & 0xFFFFFFFFL);
+    }
+
+    private static long sliceKey(int device, int sliceId) {
+        return ((long) device << 32) | (sliceId & 0xFFFFFFFFL);
+    }
+
+    private void countPort(int device, int sliceId, int delta) {
+        long key = sliceKey(device, sliceId);
+        int count = portCounts.get(key);
+        count = (count == LongIntHashMap.NO_VALUE ? 0 : count) + delta;
+        if (count > 0) {
+            portCounts.put(key, count);
+        } else {
+            portCounts.remove(key);
+        }
+    }
+
+    /**
+     * Assigns the port to the slice.
+     *
+     * @return previous slice of the port, or -1 if it had none
+     */
+    public synchronized int put(DeviceId deviceId, PortNumber portNumber, int sliceId) {
+        int device = deviceIndex.intern(deviceId);
+        int previous = assignments.put(key(device, portNumber), sliceId);
+        if (previous == sliceId) {
+            return previous;
+        }
+        countPort(device, sliceId, 1);
+        if (previous == LongIntHashMap.NO_VALUE) {
+            return -1;
+        }
+        countPort(device, previous, -1);
+        return previous;
+    }
+
+    /**
+     * Returns the slice of the port, or -1 if it has none.
+     */
+    public synchronized int get(DeviceId deviceId, PortNumber portNumber) {
+        int device = deviceIndex.indexOf(deviceId);
+        if (device < 0) {
+            return -1;
+        }
+        int sliceId = assignments.get(key(device, portNumber));
+        return sliceId == LongIntHashMap.NO_VALUE ? -1 : sliceId;
+    }
+
+    /**
+     * Removes the assignment of the port.
+     *
+     * @return removed slice, or -1 if the port had none
+     */
+    public synchronized int remove(DeviceId deviceId, PortNumber portNumber) {
+        int device = deviceIndex.indexOf(deviceId);
+        if (device < 0) {
+            return -1;
+        }
+        int sliceId = assignments.remove(key(device, portNumber));
+        if (sliceId == LongIntHashMap.NO_VALUE) {
+            return -1;
+        }
+        countPort(device, sliceId, -1);
+        return sliceId;
+    }
+
+    /**
+     * Returns whether any port of the device is assigned to the slice.
+     */
+    public synchronized boolean isSliceUsedOn(DeviceId deviceId, int sliceId) {
+        int device = deviceIndex.indexOf(deviceId);
+        if (device < 0) {
+            return false;
+        }
+        return portCounts.containsKey(sliceKey(device, sliceId));
+    }
+
+    public synchronized int size() {
+        return assignments.size();
+    }
+
+    public synchronized void forEach(Visitor visitor) {
+        assignments.forEach((key, sliceId) -> visitor.accept(deviceIndex.deviceId((int) (key >>> 32)),
+                PortNumber.portNumber(key & 0xFFFFFFFFL), sliceId));
+    }
+
+    public synchronized void clear() {
+        assignments.clear();
+        portCounts.clear();
+    }
+}
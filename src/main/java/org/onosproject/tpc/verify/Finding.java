@@ -0,0 +1,50 @@
+package org.onosproject.tpc.verify;
+
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+
+/**
+ * Problem found in a slice assignment before it is programmed.
+ */
+public class Finding {
+    public enum Type {
+        /** The port is assigned to different slices in one request, or to another slice than its current one. */
+        CONFLICT,
+        /** The port is an infrastructure port, so the slice would leak onto transit traffic. */
+        LEAK,
+        /** The slice spans devices that are not connected to each other. */
+        PARTITIONED
+    }
+
+    private final Type type;
+    private final CheckerSliceIdEntry entry;
+    private final String message;
+
+    public Finding(Type type, CheckerSliceIdEntry entry, String message)
+    {
+        this.type = type;
+        this.entry = entry;
+        this.message = message;
+    }
+
+    public Type getType() { return this.type; }
+
+    public CheckerSliceIdEntry getEntry() { return this.entry; }
+
+    public String getMessage() { return this.message; }
+
+    /**
+     * Returns whether the entry must not be programmed.
+     *
+     * @return true for conflicts and leaks
+     */
+    public boolean isBlocking() {
+        return type != Type.PARTITIONED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Finding: type=%s, entry=%s, message=%s",
+                type, entry, message);
+    }
+}
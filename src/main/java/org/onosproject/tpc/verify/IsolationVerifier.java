@@ -0,0 +1,406 @@
+package org.onosproject.tpc.verify;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.link.LinkEvent;
+import org.onosproject.net.link.LinkListener;
+import org.onosproject.net.link.LinkService;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+import org.onosproject.tpc.store.SliceAssignmentStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Control-plane model of slice isolation. Reads port to slice assignments
+ * from the {@link SliceAssignmentStore}, tracks the connected components of
+ * the link topology and the devices carrying attack entries, and keeps
+ * derived per-slice flags up to date as any of them changes:
+ * <ul>
+ *   <li>leaking ports: assigned ports that are also link endpoints,</li>
+ *   <li>partitioned slices: slices whose devices are not all connected,</li>
+ *   <li>exposed slices: slices with a port on a device with attack entries.</li>
+ * </ul>
+ * Entries can be checked against the model before they are programmed, and
+ * reports are classified from the derived flags with hash lookups only.
+ */
+public class IsolationVerifier {
+    public enum Verdict {
+        /** The model explains the report: attack, leak or partition. */
+        EXPECTED,
+        /** The configuration should isolate the slice, yet a report was raised. */
+        ANOMALOUS
+    }
+
+    private final LinkService linkService;
+    private final SliceAssignmentStore assignments;
+    private final LinkListener linkListener = new InternalLinkListener();
+
+    private final Map<Integer, Multiset<DeviceId>> sliceDevices = new HashMap<>();
+    private final Set<DeviceId> attackedDevices = new HashSet<>();
+    private final Map<DeviceId, DeviceId> components = new HashMap<>();
+
+    private final Set<ConnectPoint> leakingPorts = new HashSet<>();
+    private final Set<Integer> partitionedSlices = new HashSet<>();
+    private final Set<Integer> exposedSlices = new HashSet<>();
+
+    private long expected;
+    private long anomalous;
+
+    public IsolationVerifier(LinkService linkService, SliceAssignmentStore assignments) {
+        this.linkService = linkService;
+        this.assignments = assignments;
+    }
+
+    public void activate() {
+        linkService.addListener(linkListener);
+        synchronized (this) {
+            rebuildComponents();
+        }
+    }
+
+    public void deactivate() {
+        linkService.removeListener(linkListener);
+    }
+
+    /**
+     * Checks entries against the current model without changing it.
+     *
+     * @param entries entries about to be programmed
+     * @return findings, empty if the entries are consistent
+     */
+    public List<Finding> check(List<CheckerSliceIdEntry> entries) {
+        return check(entries, false);
+    }
+
+    /**
+     * Checks entries without changing the model. A port assigned to
+     * different slices within the entries, or, unless the entries replace
+     * the current assignments, to another slice than the one it has now, is
+     * a conflict; every entry on that port is reported, so that none of
+     * them is programmed.
+     *
+     * @param entries entries about to be programmed
+     * @param replace true if the entries replace all current assignments,
+     *                false if they are added to them
+     * @return findings, empty if the entries are consistent
+     */
+    public synchronized List<Finding> check(List<CheckerSliceIdEntry> entries, boolean replace) {
+        List<Finding> findings = new ArrayList<>();
+        Map<ConnectPoint, List<CheckerSliceIdEntry>> batch = new LinkedHashMap<>();
+        Map<Integer, Set<DeviceId>> batchSliceDevices = new HashMap<>();
+
+        for (CheckerSliceIdEntry entry: entries) {
+            batch.computeIfAbsent(connectPointOf(entry), k -> new ArrayList<>()).add(entry);
+        }
+
+        batch.forEach((cp, cpEntries) -> {
+            Set<Integer> sliceIds = new TreeSet<>();
+            cpEntries.forEach(entry -> sliceIds.add(entry.getSliceId()));
+            int current = replace ? -1 : assignments.get(cp.deviceId(), cp.port());
+            String conflict = null;
+            if (sliceIds.size() > 1) {
+                conflict = String.format("%s is assigned to slices %s in the same request", cp, sliceIds);
+            } else if (current >= 0 && !sliceIds.contains(current)) {
+                conflict = String.format("%s is already assigned to slice %s", cp, current);
+            }
+            for (CheckerSliceIdEntry entry: cpEntries) {
+                if (conflict != null) {
+                    findings.add(new Finding(Finding.Type.CONFLICT, entry, conflict));
+                } else if (isInfrastructurePort(cp)) {
+                    findings.add(new Finding(Finding.Type.LEAK, entry,
+                            String.format("%s is a link endpoint, not an edge port", cp)));
+                } else {
+                    batchSliceDevices.computeIfAbsent(entry.getSliceId(), k -> new HashSet<>()).add(cp.deviceId());
+                }
+            }
+        });
+
+        batchSliceDevices.forEach((sliceId, devices) -> {
+            Multiset<DeviceId> current = replace ? null : sliceDevices.get(sliceId);
+            if (current != null) {
+                devices.addAll(current.elementSet());
+            }
+            if (componentCount(devices) > 1) {
+                for (CheckerSliceIdEntry entry: entries) {
+                    if (entry.getSliceId() == sliceId) {
+                        findings.add(new Finding(Finding.Type.PARTITIONED, entry,
+                                String.format("slice %s spans disconnected devices %s", sliceId, devices)));
+                        break;
+                    }
+                }
+            }
+        });
+
+        return findings;
+    }
+
+    /**
+     * Updates the model after the port was assigned to the slice in the
+     * assignment store.
+     *
+     * @param deviceId device of the port
+     * @param portNumber port
+     * @param previousSliceId slice the port had before, or -1
+     * @param sliceId slice the port now has
+     */
+    public synchronized void assign(DeviceId deviceId, PortNumber portNumber, int previousSliceId, int sliceId) {
+        if (previousSliceId == sliceId) {
+            return;
+        }
+        if (previousSliceId >= 0) {
+            removeSliceDevice(previousSliceId, deviceId);
+            reevaluate(previousSliceId);
+        }
+        sliceDevices.computeIfAbsent(sliceId, k -> HashMultiset.create()).add(deviceId);
+        updateLeak(new ConnectPoint(deviceId, portNumber));
+        reevaluate(sliceId);
+    }
+
+    /**
+     * Updates the model after the assignment of the port was removed from
+     * the assignment store.
+     *
+     * @param deviceId device of the port
+     * @param portNumber port
+     * @param sliceId slice the port had
+     */
+    public synchronized void unassign(DeviceId deviceId, PortNumber portNumber, int sliceId) {
+        if (sliceId < 0) {
+            return;
+        }
+        removeSliceDevice(sliceId, deviceId);
+        leakingPorts.remove(new ConnectPoint(deviceId, portNumber));
+        reevaluate(sliceId);
+    }
+
+    /**
+     * Records that the device carries attack entries.
+     */
+    public synchronized void setAttacked(DeviceId deviceId, boolean attacked) {
+        boolean changed = attacked ? attackedDevices.add(deviceId) : attackedDevices.remove(deviceId);
+        if (!changed) {
+            return;
+        }
+        sliceDevices.forEach((sliceId, devices) -> {
+            if (devices.contains(deviceId)) {
+                reevaluate(sliceId);
+            }
+        });
+    }
+
+    /**
+     * Classifies a report against the model. A report on a port the model
+     * assigns to a different slice means the data plane has drifted from
+     * the configuration and is always anomalous.
+     *
+     * @param report translated report
+     * @return verdict
+     */
+    public synchronized Verdict classify(CheckerReport report) {
+        ConnectPoint cp = new ConnectPoint(report.getDeviceId(), report.getPortNumber());
+        int assigned = assignments.get(report.getDeviceId(), report.getPortNumber());
+        int sliceId = report.getSliceId();
+        if ((assigned < 0 || assigned == sliceId)
+                && (exposedSlices.contains(sliceId) || partitionedSlices.contains(sliceId)
+                || leakingPorts.contains(cp))) {
+            expected++;
+            return Verdict.EXPECTED;
+        }
+        anomalous++;
+        return Verdict.ANOMALOUS;
+    }
+
+    public synchronized Set<ConnectPoint> getLeakingPorts() { return ImmutableSet.copyOf(this.leakingPorts); }
+
+    public synchronized Set<Integer> getPartitionedSlices() { return ImmutableSet.copyOf(this.partitionedSlices); }
+
+    public synchronized Set<Integer> getExposedSlices() { return ImmutableSet.copyOf(this.exposedSlices); }
+
+    public synchronized int getSlices() { return this.sliceDevices.size(); }
+
+    public synchronized int getAssignments() { return this.assignments.size(); }
+
+    public synchronized long getExpected() { return this.expected; }
+
+    public synchronized long getAnomalous() { return this.anomalous; }
+
+    /**
+     * Returns a consistent snapshot of the flagged ports and slices and of
+     * the counters.
+     *
+     * @return isolation state
+     */
+    public synchronized State state() {
+        return new State(sliceDevices.size(), assignments.size(), expected, anomalous,
+                ImmutableSet.copyOf(leakingPorts), ImmutableSet.copyOf(partitionedSlices),
+                ImmutableSet.copyOf(exposedSlices));
+    }
+
+    public static class State {
+        private final int slices;
+        private final int assignments;
+        private final long expected;
+        private final long anomalous;
+        private final Set<ConnectPoint> leakingPorts;
+        private final Set<Integer> partitionedSlices;
+        private final Set<Integer> exposedSlices;
+
+        State(int slices, int assignments, long expected, long anomalous, Set<ConnectPoint> leakingPorts,
+              Set<Integer> partitionedSlices, Set<Integer> exposedSlices) {
+            this.slices = slices;
+            this.assignments = assignments;
+            this.expected = expected;
+            this.anomalous = anomalous;
+            this.leakingPorts = leakingPorts;
+            this.partitionedSlices = partitionedSlices;
+            this.exposedSlices = exposedSlices;
+        }
+
+        public int getSlices() { return this.slices; }
+
+        public int getAssignments() { return this.assignments; }
+
+        public long getExpected() { return this.expected; }
+
+        public long getAnomalous() { return this.anomalous; }
+
+        public Set<ConnectPoint> getLeakingPorts() { return this.leakingPorts; }
+
+        public Set<Integer> getPartitionedSlices() { return this.partitionedSlices; }
+
+        public Set<Integer> getExposedSlices() { return this.exposedSlices; }
+    }
+
+    /**
+     * Forgets the state derived from assignments, and attack entries;
+     * topology is kept. The assignment store is cleared by its owner.
+     */
+    public synchronized void clear() {
+        sliceDevices.clear();
+        attackedDevices.clear();
+        leakingPorts.clear();
+        partitionedSlices.clear();
+        exposedSlices.clear();
+    }
+
+    private void removeSliceDevice(int sliceId, DeviceId deviceId) {
+        Multiset<DeviceId> devices = sliceDevices.get(sliceId);
+        if (devices != null) {
+            devices.remove(deviceId);
+            if (devices.isEmpty()) {
+                sliceDevices.remove(sliceId);
+            }
+        }
+    }
+
+    private void reevaluate(int sliceId) {
+        Multiset<DeviceId> devices = sliceDevices.get(sliceId);
+        if (devices == null) {
+            partitionedSlices.remove(sliceId);
+            exposedSlices.remove(sliceId);
+            return;
+        }
+        setFlag(partitionedSlices, sliceId, componentCount(devices.elementSet()) > 1);
+
+        boolean exposed = false;
+        for (DeviceId deviceId: devices.elementSet()) {
+            if (attackedDevices.contains(deviceId)) {
+                exposed = true;
+                break;
+            }
+        }
+        setFlag(exposedSlices, sliceId, exposed);
+    }
+
+    private static <T> void setFlag(Set<T> flags, T value, boolean set) {
+        if (set) {
+            flags.add(value);
+        } else {
+            flags.remove(value);
+        }
+    }
+
+    private void updateLeak(ConnectPoint cp) {
+        setFlag(leakingPorts, cp, assignments.get(cp.deviceId(), cp.port()) >= 0 && isInfrastructurePort(cp));
+    }
+
+    private boolean isInfrastructurePort(ConnectPoint cp) {
+        return !linkService.getIngressLinks(cp).isEmpty() || !linkService.getEgressLinks(cp).isEmpty();
+    }
+
+    private static ConnectPoint connectPointOf(CheckerSliceIdEntry entry) {
+        return new ConnectPoint(DeviceId.deviceId(entry.getDeviceId()), entry.getPortNumber());
+    }
+
+    private int componentCount(Set<DeviceId> devices) {
+        Set<DeviceId> roots = new HashSet<>();
+        for (DeviceId deviceId: devices) {
+            roots.add(find(deviceId));
+        }
+        return roots.size();
+    }
+
+    private DeviceId find(DeviceId deviceId) {
+        DeviceId parent = components.get(deviceId);
+        if (parent == null) {
+            return deviceId;
+        }
+        DeviceId root = find(parent);
+        if (root != parent) {
+            components.put(deviceId, root);
+        }
+        return root;
+    }
+
+    private void union(DeviceId a, DeviceId b) {
+        DeviceId rootA = find(a);
+        DeviceId rootB = find(b);
+        if (!rootA.equals(rootB)) {
+            components.put(rootA, rootB);
+        }
+    }
+
+    private void rebuildComponents() {
+        components.clear();
+        for (Link link: linkService.getLinks()) {
+            union(link.src().deviceId(), link.dst().deviceId());
+        }
+    }
+
+    private synchronized void onLink(LinkEvent event) {
+        Link link = event.subject();
+        if (event.type() == LinkEvent.Type.LINK_ADDED) {
+            union(link.src().deviceId(), link.dst().deviceId());
+        } else if (event.type() == LinkEvent.Type.LINK_REMOVED) {
+            // Union-find cannot split components, rebuild from the remaining links
+            rebuildComponents();
+        } else {
+            return;
+        }
+        updateLeak(link.src());
+        updateLeak(link.dst());
+        for (Integer sliceId: new ArrayList<>(sliceDevices.keySet())) {
+            reevaluate(sliceId);
+        }
+    }
+
+    private class InternalLinkListener implements LinkListener {
+        @Override
+        public void event(LinkEvent event) {
+            onLink(event);
+        }
+    }
+}
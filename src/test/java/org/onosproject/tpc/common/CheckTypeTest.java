@@ -0,0 +1,39 @@
+package org.onosproject.tpc.common;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link CheckType}.
+ */
+public class CheckTypeTest {
+
+    @Test
+    public void parsesNamesCaseInsensitively() {
+        assertEquals(EnumSet.of(CheckType.ISO), CheckType.fromStrings(ImmutableList.of(" ISO")));
+        assertEquals(EnumSet.allOf(CheckType.class), CheckType.fromStrings(ImmutableList.of("iso", "qos")));
+    }
+
+    @Test
+    public void noNamesMeansAllTypes() {
+        assertEquals(EnumSet.allOf(CheckType.class), CheckType.fromStrings(Collections.emptyList()));
+    }
+
+    @Test
+    public void unknownNameIsRejected() {
+        // The REST handlers map this to 400 Bad Request
+        try {
+            CheckType.fromStrings(ImmutableList.of("iso", "latency"));
+            fail("Unknown check type accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("latency"));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.onosproject.tpc.common;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link CheckerReport}.
+ */
+public class CheckerReportTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+
+    @Test
+    public void headerLayout() {
+        assertArrayEquals(new byte[] {1, 0, 0x01, 0x02, 0x00, 0x07}, CheckerReport.encode(CheckType.QOS, 0x102, 7));
+    }
+
+    @Test
+    public void decodesEncodedHeader() {
+        CheckerReport report = CheckerReport.decode(S1, CheckerReport.encode(CheckType.ISO, 65535, 300), 42);
+        assertEquals(S1, report.getDeviceId());
+        assertEquals(PortNumber.portNumber(300), report.getPortNumber());
+        assertEquals(65535, report.getSliceId());
+        assertEquals(CheckType.ISO, report.getCheckType());
+        assertEquals(42, report.getTimestamp());
+    }
+
+    @Test
+    public void rejectsShortOrUnknownReports() {
+        try {
+            CheckerReport.decode(S1, new byte[CheckerReport.HEADER_LENGTH - 1], 0);
+            fail("Short report accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            CheckerReport.decode(S1, new byte[] {2, 0, 0, 1, 0, 1}, 0);
+            fail("Unknown report type accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void keyFollowsDevicePortSliceAndCheckType() {
+        CheckerReport report = new CheckerReport(S1, PortNumber.portNumber(1), 10, CheckType.ISO, 0);
+        assertEquals(report.key(), new CheckerReport(S1, PortNumber.portNumber(1), 10, CheckType.ISO, 99).key());
+        assertNotEquals(report.key(), report.withSliceId(11).key());
+        assertNotEquals(report.key(), new CheckerReport(S1, PortNumber.portNumber(2), 10, CheckType.ISO, 0).key());
+        assertNotEquals(report.key(), new CheckerReport(S1, PortNumber.portNumber(1), 10, CheckType.QOS, 0).key());
+    }
+}
@@ -0,0 +1,64 @@
+package org.onosproject.tpc.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 0; v < 8; v++) {
+            histogram.record(v);
+        }
+        assertEquals(8, histogram.count());
+        assertEquals(3, histogram.percentile(50));
+        assertEquals(7, histogram.percentile(100));
+        assertEquals(7, histogram.max());
+    }
+
+    @Test
+    public void percentilesAreUpperBoundsWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++) {
+            histogram.record(v * 1000);
+        }
+        long[][] expected = {{50, 50000000L}, {90, 90000000L}, {99, 99000000L}};
+        for (long[] e : expected) {
+            long p = histogram.percentile(e[0]);
+            assertTrue("p" + e[0] + "=" + p, p >= e[1]);
+            assertTrue("p" + e[0] + "=" + p, p <= e[1] * 1.125);
+        }
+        assertEquals(100000000L, histogram.percentile(100));
+    }
+
+    @Test
+    public void negativeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(12345);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+    }
+}
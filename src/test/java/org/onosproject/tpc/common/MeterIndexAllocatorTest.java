@@ -0,0 +1,119 @@
+package org.onosproject.tpc.common;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link MeterIndexAllocator}.
+ */
+public class MeterIndexAllocatorTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+
+    @Test
+    public void indexIsSharedAcrossDevices() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(8);
+        int index = allocator.acquire(S1, 1000);
+        assertEquals(1, index);
+        assertEquals(index, allocator.acquire(S2, 1000));
+        assertEquals(2, allocator.acquire(S1, 7));
+        assertEquals(1000, allocator.sliceOf(1));
+        assertEquals(1, allocator.indexOf(1000));
+        assertEquals(2, allocator.size());
+    }
+
+    @Test
+    public void indexIsFreedWhenLastDeviceReleases() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(8);
+        allocator.acquire(S1, 1000);
+        allocator.acquire(S2, 1000);
+        allocator.release(S1, 1000);
+        assertEquals(1, allocator.indexOf(1000));
+        assertFalse(allocator.isUsedOn(S1, 1000));
+        assertTrue(allocator.isUsedOn(S2, 1000));
+
+        allocator.release(S2, 1000);
+        assertEquals(-1, allocator.indexOf(1000));
+        assertEquals(-1, allocator.sliceOf(1));
+        assertEquals(1, allocator.acquire(S1, 2000));
+    }
+
+    @Test
+    public void releaseOfUnknownSliceIsIgnored() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(8);
+        allocator.acquire(S1, 1);
+        allocator.release(S2, 1);
+        allocator.release(S1, 99);
+        assertEquals(1, allocator.indexOf(1));
+    }
+
+    @Test
+    public void indexZeroIsReserved() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(8);
+        assertEquals(-1, allocator.sliceOf(0));
+        assertTrue(allocator.acquire(S1, 0) > 0);
+    }
+
+    @Test
+    public void exhaustionThrows() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(3);
+        allocator.acquire(S1, 1);
+        allocator.acquire(S1, 2);
+        try {
+            allocator.acquire(S1, 3);
+            fail("expected exhaustion");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertEquals(-1, allocator.indexOf(3));
+        assertFalse(allocator.isUsedOn(S1, 3));
+    }
+
+    @Test
+    public void canAcquireCountsOnlySlicesWithoutIndex() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(4);
+        allocator.acquire(S1, 1);
+        allocator.acquire(S1, 2);
+        assertTrue(allocator.canAcquire(Arrays.asList(1, 2, 3, 3)));
+        assertFalse(allocator.canAcquire(Arrays.asList(3, 4)));
+        assertTrue(allocator.canAcquire(Collections.emptyList()));
+
+        allocator.release(S1, 2);
+        assertTrue(allocator.canAcquire(Arrays.asList(3, 4)));
+    }
+
+    @Test
+    public void acquireOnManyDevicesIsAllOrNothing() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(2);
+        allocator.acquire(S1, 1);
+        try {
+            allocator.acquire(Arrays.asList(S1, S2), 2);
+            fail("expected exhaustion");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertFalse(allocator.isUsedOn(S1, 2));
+        assertFalse(allocator.isUsedOn(S2, 2));
+
+        assertEquals(1, allocator.acquire(Arrays.asList(S1, S2), 1));
+        assertTrue(allocator.isUsedOn(S2, 1));
+        assertEquals(-1, allocator.acquire(Collections.emptyList(), 5));
+    }
+
+    @Test
+    public void clearResetsEverything() {
+        MeterIndexAllocator allocator = new MeterIndexAllocator(8);
+        allocator.acquire(S1, 5);
+        allocator.clear();
+        assertEquals(0, allocator.size());
+        assertEquals(1, allocator.acquire(S2, 6));
+    }
+}
@@ -0,0 +1,237 @@
+package org.onosproject.tpc.device;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.Device;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
+import org.onosproject.net.device.DeviceServiceAdapter;
+import org.onosproject.net.pi.model.PiMeterId;
+import org.onosproject.net.pi.model.PiMeterModel;
+import org.onosproject.net.pi.model.PiPipeconf;
+import org.onosproject.net.pi.model.PiPipeconfId;
+import org.onosproject.net.pi.model.PiPipelineModel;
+import org.onosproject.net.pi.model.PiTableId;
+import org.onosproject.net.pi.model.PiTableModel;
+import org.onosproject.net.pi.service.PiPipeconfService;
+import org.onosproject.net.provider.ProviderId;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link TPCDeviceRegistry}.
+ */
+public class TPCDeviceRegistryTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+    private static final DeviceId S3 = DeviceId.deviceId("device:s3");
+
+    private static final PiPipeconfId TPC = new PiPipeconfId("tpc");
+    private static final PiPipeconfId NO_LAST_HOP = new PiPipeconfId("no-last-hop");
+    private static final PiPipeconfId NO_SLICE_METER = new PiPipeconfId("no-slice-meter");
+
+    private final TestDeviceService deviceService = new TestDeviceService();
+    private final Map<DeviceId, PiPipeconfId> bindings = new HashMap<>();
+    private final List<DeviceId> removed = new ArrayList<>();
+    private TPCDeviceRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new TPCDeviceRegistry(deviceService, pipeconfService());
+        registry.setRemovalListener(removed::add);
+    }
+
+    @After
+    public void tearDown() {
+        registry.deactivate();
+    }
+
+    @Test
+    public void addsAvailableDevicesWithEveryTable() {
+        deviceService.add(S1, true);
+        deviceService.add(S2, false);
+        bindings.put(S1, TPC);
+        bindings.put(S2, TPC);
+        registry.activate();
+        assertEquals(ImmutableSet.of(S1), registry.devices());
+
+        deviceService.setAvailable(S2, true);
+        deviceService.post(DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED, S2);
+        deviceService.add(S3, true);
+        bindings.put(S3, TPC);
+        deviceService.post(DeviceEvent.Type.DEVICE_ADDED, S3);
+        assertEquals(ImmutableSet.of(S1, S2, S3), registry.devices());
+        assertTrue(registry.contains(S3));
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void deviceLeavingIsRemovedOnce() {
+        deviceService.add(S1, true);
+        deviceService.add(S2, true);
+        bindings.put(S1, TPC);
+        bindings.put(S2, TPC);
+        registry.activate();
+
+        deviceService.setAvailable(S1, false);
+        deviceService.post(DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED, S1);
+        deviceService.post(DeviceEvent.Type.DEVICE_REMOVED, S1);
+        assertEquals(ImmutableSet.of(S2), registry.devices());
+        assertFalse(registry.contains(S1));
+        assertEquals(ImmutableList.of(S1), removed);
+    }
+
+    @Test
+    public void pipeconfMissingATableOrMeterIsRejected() {
+        deviceService.add(S1, true);
+        deviceService.add(S2, true);
+        deviceService.add(S3, true);
+        bindings.put(S1, NO_LAST_HOP);
+        bindings.put(S2, NO_SLICE_METER);
+        // S3 has no pipeconf
+        registry.activate();
+        assertTrue(registry.devices().isEmpty());
+    }
+
+    @Test
+    public void rebindingToAnIncompletePipeconfRemovesDevice() {
+        deviceService.add(S1, true);
+        bindings.put(S1, TPC);
+        registry.activate();
+
+        bindings.put(S1, NO_LAST_HOP);
+        deviceService.post(DeviceEvent.Type.DEVICE_UPDATED, S1);
+        assertTrue(registry.devices().isEmpty());
+        assertEquals(ImmutableList.of(S1), removed);
+    }
+
+    /**
+     * Returns a pipeconf service resolving the test bindings. There is no
+     * adapter for the pipeconf service and pipeline model, so their test
+     * doubles are proxies answering only what the registry asks for.
+     */
+    private PiPipeconfService pipeconfService() {
+        return proxy(PiPipeconfService.class, (method, args) -> {
+            switch (method.getName()) {
+                case "ofDevice":
+                    return Optional.ofNullable(bindings.get((DeviceId) args[0]));
+                case "getPipeconf":
+                    return args[0] instanceof PiPipeconfId
+                            ? Optional.of(pipeconf((PiPipeconfId) args[0])) : Optional.empty();
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static PiPipeconf pipeconf(PiPipeconfId pipeconfId) {
+        PiTableId missingTable = pipeconfId.equals(NO_LAST_HOP)
+                ? PiTableId.of("FabricEgress.checker_control.tb_check_last_hop") : null;
+        PiMeterId missingMeter = pipeconfId.equals(NO_SLICE_METER)
+                ? PiMeterId.of("FabricEgress.checker_control.slice_meter") : null;
+        PiPipelineModel model = proxy(PiPipelineModel.class, (method, args) -> {
+            switch (method.getName()) {
+                case "table":
+                    return args[0].equals(missingTable)
+                            ? Optional.empty() : Optional.of(proxy(PiTableModel.class, (m, a) -> null));
+                case "meter":
+                    return args[0].equals(missingMeter)
+                            ? Optional.empty() : Optional.of(proxy(PiMeterModel.class, (m, a) -> null));
+                default:
+                    return null;
+            }
+        });
+        return proxy(PiPipeconf.class, (method, args) -> {
+            switch (method.getName()) {
+                case "id":
+                    return pipeconfId;
+                case "pipelineModel":
+                    return model;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, BiFunction<Method, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+            return handler.apply(method, args);
+        });
+    }
+
+    private static class TestDeviceService extends DeviceServiceAdapter {
+        private static final ProviderId PID = new ProviderId("p4runtime", "test");
+
+        private final Map<DeviceId, Device> devices = new HashMap<>();
+        private final Set<DeviceId> available = new HashSet<>();
+        private DeviceListener listener;
+
+        void add(DeviceId deviceId, boolean isAvailable) {
+            devices.put(deviceId, new DefaultDevice(PID, deviceId, Device.Type.SWITCH,
+                    "test", "1.0", "1.0", "1", new ChassisId()));
+            setAvailable(deviceId, isAvailable);
+        }
+
+        void setAvailable(DeviceId deviceId, boolean isAvailable) {
+            if (isAvailable) {
+                available.add(deviceId);
+            } else {
+                available.remove(deviceId);
+            }
+        }
+
+        void post(DeviceEvent.Type type, DeviceId deviceId) {
+            listener.event(new DeviceEvent(type, devices.get(deviceId)));
+        }
+
+        @Override
+        public Iterable<Device> getDevices() {
+            return new ArrayList<>(devices.values());
+        }
+
+        @Override
+        public boolean isAvailable(DeviceId deviceId) {
+            return available.contains(deviceId);
+        }
+
+        @Override
+        public void addListener(DeviceListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void removeListener(DeviceListener listener) {
+            this.listener = null;
+        }
+    }
+}
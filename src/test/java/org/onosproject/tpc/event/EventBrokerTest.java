@@ -0,0 +1,97 @@
+package org.onosproject.tpc.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link EventBroker}.
+ */
+public class EventBrokerTest {
+
+    private static TPCEvent event() {
+        return new TPCEvent(TPCEvent.Type.VIOLATION, System.currentTimeMillis(), null);
+    }
+
+    @Test
+    public void fansOutToAllSubscribers() throws InterruptedException {
+        EventBroker broker = new EventBroker(4);
+        EventBroker.Subscription first = broker.subscribe(4);
+        EventBroker.Subscription second = broker.subscribe(4);
+        TPCEvent event = event();
+        broker.publish(event);
+        assertSame(event, first.poll(0, TimeUnit.MILLISECONDS));
+        assertSame(event, second.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(first.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void overflowIsDroppedPerSubscriber() {
+        EventBroker broker = new EventBroker(4);
+        EventBroker.Subscription slow = broker.subscribe(2);
+        for (int i = 0; i < 5; i++) {
+            broker.publish(event());
+        }
+        assertEquals(3, slow.getDropped());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsSubscribersOverLimit() {
+        EventBroker broker = new EventBroker(1);
+        broker.subscribe(1);
+        broker.subscribe(1);
+    }
+
+    @Test
+    public void closeFreesSlotOnce() {
+        EventBroker broker = new EventBroker(1);
+        EventBroker.Subscription subscription = broker.subscribe(1);
+        subscription.close();
+        subscription.close();
+        assertFalse(broker.hasSubscribers());
+        broker.subscribe(1);
+        try {
+            broker.subscribe(1);
+        } catch (IllegalStateException e) {
+            return;
+        }
+        throw new AssertionError("double close freed two slots");
+    }
+
+    @Test
+    public void concurrentSubscribersRespectLimit() throws InterruptedException {
+        EventBroker broker = new EventBroker(3);
+        ConcurrentLinkedQueue<EventBroker.Subscription> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    accepted.add(broker.subscribe(1));
+                } catch (IllegalStateException | InterruptedException e) {
+                    // Over the limit
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(3, accepted.size());
+        assertEquals(3, broker.getSubscriberCount());
+        assertTrue(broker.hasSubscribers());
+    }
+}
@@ -0,0 +1,95 @@
+package org.onosproject.tpc.journal;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link JournalFormat}.
+ */
+public class JournalFormatTest {
+    private static final int OFFSET = JournalFormat.HEADER_SIZE + JournalFormat.RECORD_SIZE;
+
+    private static ByteBuffer segment() {
+        return ByteBuffer.allocate(JournalFormat.HEADER_SIZE + 4 * JournalFormat.RECORD_SIZE);
+    }
+
+    private static CheckerReport report(String deviceId) {
+        return new CheckerReport(DeviceId.deviceId(deviceId), PortNumber.portNumber(7), 42, CheckType.QOS, 1234567L);
+    }
+
+    @Test
+    public void headerRoundTrip() {
+        ByteBuffer buffer = segment();
+        assertFalse(JournalFormat.checkHeader(buffer));
+        JournalFormat.writeHeader(buffer);
+        assertTrue(JournalFormat.checkHeader(buffer));
+    }
+
+    @Test
+    public void recordRoundTrip() {
+        ByteBuffer buffer = segment();
+        JournalFormat.writeRecord(buffer, OFFSET, report("device:leaf1"));
+
+        CheckerReport read = JournalFormat.readRecord(buffer, OFFSET);
+        assertEquals(DeviceId.deviceId("device:leaf1"), read.getDeviceId());
+        assertEquals(PortNumber.portNumber(7), read.getPortNumber());
+        assertEquals(42, read.getSliceId());
+        assertEquals(CheckType.QOS, read.getCheckType());
+        assertEquals(1234567L, read.getTimestamp());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void longDeviceIdIsTruncated() {
+        ByteBuffer buffer = segment();
+        String deviceId = "device:" + "x".repeat(60);
+        JournalFormat.writeRecord(buffer, OFFSET, report(deviceId));
+
+        CheckerReport read = JournalFormat.readRecord(buffer, OFFSET);
+        assertEquals(deviceId.substring(0, JournalFormat.MAX_DEVICE_ID_LENGTH), read.getDeviceId().toString());
+        assertNull(JournalFormat.readRecord(buffer, OFFSET + JournalFormat.RECORD_SIZE));
+    }
+
+    @Test
+    public void unwrittenSlotIsEnd() {
+        assertNull(JournalFormat.readRecord(segment(), OFFSET));
+    }
+
+    @Test
+    public void tornRecordIsInvisible() {
+        // A writer interrupted before the timestamp leaves every other field in place
+        ByteBuffer complete = segment();
+        JournalFormat.writeRecord(complete, OFFSET, report("device:leaf1"));
+        ByteBuffer torn = segment();
+        for (int i = 8; i < JournalFormat.RECORD_SIZE; i++) {
+            torn.put(OFFSET + i, complete.get(OFFSET + i));
+        }
+        assertNull(JournalFormat.readRecord(torn, OFFSET));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownCheckTypeIsRejected() {
+        ByteBuffer buffer = segment();
+        JournalFormat.writeRecord(buffer, OFFSET, report("device:leaf1"));
+        buffer.put(OFFSET + 20, (byte) 0xFF);
+        JournalFormat.readRecord(buffer, OFFSET);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oversizedDeviceIdLengthIsRejected() {
+        ByteBuffer buffer = segment();
+        JournalFormat.writeRecord(buffer, OFFSET, report("device:leaf1"));
+        buffer.put(OFFSET + 21, (byte) (JournalFormat.MAX_DEVICE_ID_LENGTH + 1));
+        JournalFormat.readRecord(buffer, OFFSET);
+    }
+}
@@ -0,0 +1,87 @@
+package org.onosproject.tpc.journal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link ReportJournal} and {@link ReportJournalReplayer}.
+ */
+public class ReportJournalReplayerTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tpc-journal");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private ReportJournal.Stats journal(int count) throws IOException {
+        ReportJournal journal = new ReportJournal(directory, 4, 8, 64);
+        journal.start();
+        for (int i = 0; i < count; i++) {
+            journal.append(new CheckerReport(DeviceId.deviceId("device:s1"), PortNumber.portNumber(i),
+                    i, CheckType.ISO, 1000 + i));
+        }
+        journal.stop();
+        return journal.stats();
+    }
+
+    @Test
+    public void replaysAcrossSegmentsInOrder() throws IOException {
+        ReportJournal.Stats stats = journal(10);
+        assertEquals(directory, stats.getDirectory());
+        assertEquals(10, stats.getWritten());
+        assertEquals(0, stats.getDropped());
+        assertEquals(3, ReportJournal.listSegments(directory).size());
+
+        List<CheckerReport> replayed = new ArrayList<>();
+        ReportJournalReplayer replayer = new ReportJournalReplayer(directory, 0);
+        assertEquals(10, replayer.replay(replayed::add));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, replayed.get(i).getSliceId());
+            assertEquals(1000 + i, replayed.get(i).getTimestamp());
+        }
+        assertEquals(0, replayer.getCorrupt());
+    }
+
+    @Test
+    public void skipsCorruptRecords() throws IOException {
+        journal(4);
+        Path segment = ReportJournal.listSegments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.put(JournalFormat.HEADER_SIZE + JournalFormat.RECORD_SIZE + 20, (byte) 0x7F);
+            buffer.force();
+        }
+
+        List<CheckerReport> replayed = new ArrayList<>();
+        ReportJournalReplayer replayer = new ReportJournalReplayer(directory, 0);
+        assertEquals(3, replayer.replay(replayed::add));
+        assertEquals(1, replayer.getCorrupt());
+        assertEquals(2, replayed.get(1).getSliceId());
+    }
+}
@@ -0,0 +1,59 @@
+package org.onosproject.tpc.load;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link LoadConfig}.
+ */
+public class LoadConfigTest {
+
+    private static LoadConfig config(long rate, long duration, int threads, int devices, int keys) {
+        return new LoadConfig(rate, duration, threads, devices, 32, 8, keys,
+                LoadConfig.Distribution.UNIFORM, 1.0, 1);
+    }
+
+    @Test
+    public void acceptsValidConfig() {
+        LoadConfig config = config(10000, 600000, 2, 4, 1024);
+        assertEquals(10000, config.getRate());
+        assertEquals(600000, config.getDuration());
+        assertEquals(2, config.getThreads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveRate() {
+        config(0, 10000, 1, 4, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveDuration() {
+        config(10000, 0, 1, 4, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOverlongDuration() {
+        config(10000, 600001, 1, 4, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveThreads() {
+        config(10000, 10000, 0, 4, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveDeviceCount() {
+        config(10000, 10000, 1, 0, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveKeyCount() {
+        config(10000, 10000, 1, 4, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownDistribution() {
+        LoadConfig.Distribution.valueOf("PARETO");
+    }
+}
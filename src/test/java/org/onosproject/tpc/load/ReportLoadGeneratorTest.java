@@ -0,0 +1,52 @@
+package org.onosproject.tpc.load;
+
+import org.junit.Test;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.report.ReportPipelineStats;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ReportLoadGenerator}.
+ */
+public class ReportLoadGeneratorTest {
+
+    @Test
+    public void offersDecodableReportsAndCountsDrops() throws InterruptedException {
+        ReportPipelineStats stats = new ReportPipelineStats();
+        AtomicLong dropped = new AtomicLong();
+        Set<String> devices = new HashSet<>();
+        // Claims every report, and drops QoS reports as if their slice index were unallocated
+        PacketProcessor processor = context -> {
+            CheckerReport report = CheckerReport.decode(context.inPacket().receivedFrom().deviceId(),
+                    context.inPacket().parsed(), 0);
+            synchronized (devices) {
+                devices.add(report.getDeviceId().toString());
+            }
+            assertTrue(report.getSliceId() >= 1 && report.getSliceId() <= 4);
+            context.block();
+            if (report.getCheckType() == CheckType.QOS) {
+                stats.recordDrop();
+                dropped.incrementAndGet();
+            }
+        };
+
+        LoadConfig config = new LoadConfig(4000, 250, 2, 2, 4, 4, 64,
+                LoadConfig.Distribution.ZIPF, 1.1, 7);
+        LoadResult result = new ReportLoadGenerator(processor, stats).run(config);
+
+        assertEquals(1000, result.getOffered());
+        assertEquals(1000, result.getHandled());
+        assertEquals(dropped.get(), result.getDropped());
+        assertTrue(result.getDropped() > 0 && result.getDropped() < result.getHandled());
+        assertTrue(devices.size() <= 2);
+        assertTrue(result.getThroughput() > 0);
+    }
+}
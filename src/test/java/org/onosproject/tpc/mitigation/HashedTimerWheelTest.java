@@ -0,0 +1,79 @@
+package org.onosproject.tpc.mitigation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HashedTimerWheel}.
+ */
+public class HashedTimerWheelTest {
+    private static final long TICK = 5;
+
+    private ScheduledExecutorService executor;
+    private HashedTimerWheel wheel;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        wheel = new HashedTimerWheel(TICK, 8, executor);
+        wheel.start();
+    }
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void firesAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(fired::countDown, 20);
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("fired after " + elapsedMillis + "ms", elapsedMillis >= 20 - TICK);
+    }
+
+    @Test
+    public void delayLongerThanOneRevolution() throws InterruptedException {
+        // 8 buckets of 5ms, so 100ms needs two full rounds before firing
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(fired::countDown, 100);
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("fired after " + elapsedMillis + "ms", elapsedMillis >= 100 - TICK);
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        CountDownLatch later = new CountDownLatch(1);
+        HashedTimerWheel.Timeout timeout = wheel.schedule(fired::incrementAndGet, 20);
+        wheel.schedule(later::countDown, 60);
+        timeout.cancel();
+        assertTrue(later.await(1, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    public void failingTaskDoesNotStopWheel() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, 10);
+        wheel.schedule(fired::countDown, 30);
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,128 @@
+package org.onosproject.tpc.mitigation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MitigationEngine}.
+ */
+public class MitigationEngineTest {
+    private ScheduledExecutorService executor;
+    private HashedTimerWheel wheel;
+    private TestActuator actuator;
+    private MitigationEngine engine;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        wheel = new HashedTimerWheel(10, 64, executor);
+        actuator = new TestActuator();
+        engine = new MitigationEngine(3, 60000, 1000.0, 100, wheel, actuator);
+        engine.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+        executor.shutdownNow();
+    }
+
+    private static CheckerReport report(int port, int slice) {
+        return report(port, slice, CheckType.ISO);
+    }
+
+    private static CheckerReport report(int port, int slice, CheckType checkType) {
+        return new CheckerReport(DeviceId.deviceId("device:s1"), PortNumber.portNumber(port),
+                slice, checkType, 0);
+    }
+
+    @Test
+    public void installsOnceThresholdIsReached() {
+        engine.onReport(report(1, 1), 2, System.nanoTime());
+        assertEquals(0, engine.getInstalled());
+        engine.onReport(report(1, 1), 3, System.nanoTime());
+        engine.onReport(report(1, 1), 4, System.nanoTime());
+        assertEquals(1, engine.getInstalled());
+        assertEquals(1, actuator.installed.size());
+        assertEquals(1, engine.getActive().size());
+    }
+
+    @Test
+    public void slicesOnSamePortAreMitigatedSeparately() {
+        engine.onReport(report(1, 1), 3, System.nanoTime());
+        engine.onReport(report(1, 2), 3, System.nanoTime());
+        assertEquals(2, engine.getActive().size());
+
+        engine.removeAll();
+        assertEquals(2, actuator.removed.size());
+        assertTrue(engine.getActive().isEmpty());
+    }
+
+    @Test
+    public void checkTypesOfSamePortAndSliceAreMitigatedSeparately() {
+        engine.onReport(report(1, 1, CheckType.ISO), 3, System.nanoTime());
+        engine.onReport(report(1, 1, CheckType.QOS), 3, System.nanoTime());
+        assertEquals(2, engine.getInstalled());
+        assertEquals(CheckType.ISO, actuator.installed.get(0).getReport().getCheckType());
+        assertEquals(CheckType.QOS, actuator.installed.get(1).getReport().getCheckType());
+    }
+
+    @Test
+    public void statsAreASnapshot() {
+        engine.onReport(report(1, 1), 3, System.nanoTime());
+        MitigationEngine.Stats stats = engine.stats();
+        assertEquals(1, stats.getInstalled());
+        assertEquals(1, stats.getActive().size());
+        assertEquals(4, stats.getLatency().length);
+
+        engine.removeAll();
+        assertEquals(1, stats.getActive().size());
+        assertTrue(engine.stats().getActive().isEmpty());
+    }
+
+    @Test
+    public void refusedInstallIsNotCounted() {
+        actuator.accept = false;
+        engine.onReport(report(1, 1), 3, System.nanoTime());
+        assertEquals(0, engine.getInstalled());
+        assertEquals(1, engine.getSkipped());
+        assertEquals(0, engine.getLatency().count());
+        assertTrue(engine.getActive().isEmpty());
+
+        actuator.accept = true;
+        engine.onReport(report(1, 1), 3, System.nanoTime());
+        assertEquals(1, engine.getInstalled());
+    }
+
+    private static class TestActuator implements MitigationEngine.Actuator {
+        private final List<Mitigation> installed = new ArrayList<>();
+        private final List<Mitigation> removed = new ArrayList<>();
+        private boolean accept = true;
+
+        @Override
+        public boolean install(Mitigation mitigation) {
+            if (accept) {
+                installed.add(mitigation);
+            }
+            return accept;
+        }
+
+        @Override
+        public void remove(Mitigation mitigation) {
+            removed.add(mitigation);
+        }
+    }
+}
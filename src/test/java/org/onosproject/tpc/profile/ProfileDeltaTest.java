@@ -0,0 +1,184 @@
+package org.onosproject.tpc.profile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.Ip4Address;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+import org.onosproject.tpc.common.ExfiltrationAttackEntry;
+import org.onosproject.tpc.common.SliceQoSEntry;
+import org.onosproject.tpc.store.AttackEntryStore;
+import org.onosproject.tpc.store.DeviceIndex;
+import org.onosproject.tpc.store.SliceAssignmentStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ProfileDelta}.
+ */
+public class ProfileDeltaTest {
+    private static final String S1 = "device:s1";
+    private static final String S2 = "device:s2";
+
+    private Map<Integer, Long> sliceQoS;
+    private SliceAssignmentStore assignments;
+    private AttackEntryStore attacks;
+
+    @Before
+    public void setUp() {
+        DeviceIndex deviceIndex = new DeviceIndex();
+        sliceQoS = new HashMap<>();
+        assignments = new SliceAssignmentStore(deviceIndex, 16);
+        attacks = new AttackEntryStore(deviceIndex, 16);
+
+        apply(ProfileDelta.compute(profile(
+                Arrays.asList(sliceId(S1, 1, 10), sliceId(S1, 2, 20), sliceId(S2, 1, 10)),
+                Arrays.asList(new SliceQoSEntry(10, 1000), new SliceQoSEntry(20, 2000)),
+                Arrays.asList(attack(S1, "10.0.0.1", "10.0.0.2", "10.0.1.1"),
+                        attack(S2, "10.0.0.3", "10.0.0.4", "10.0.1.3"))),
+                sliceQoS, assignments, attacks));
+    }
+
+    private static CheckerSliceIdEntry sliceId(String deviceId, long port, int sliceId) {
+        return new CheckerSliceIdEntry(deviceId, PortNumber.portNumber(port), sliceId);
+    }
+
+    private static ExfiltrationAttackEntry attack(String deviceId, String src, String dst, String srcRewritten) {
+        return new ExfiltrationAttackEntry(deviceId, Ip4Address.valueOf(src), Ip4Address.valueOf(dst),
+                Ip4Address.valueOf(srcRewritten), Ip4Address.valueOf(dst));
+    }
+
+    private static ConfigProfile profile(List<CheckerSliceIdEntry> sliceIdEntries,
+                                         List<SliceQoSEntry> sliceQoSEntries,
+                                         List<ExfiltrationAttackEntry> attackEntries) {
+        return new ConfigProfile("test", sliceIdEntries, sliceQoSEntries, attackEntries);
+    }
+
+    /**
+     * Applies a delta to the stores the way activation does.
+     */
+    private void apply(ProfileDelta delta) {
+        delta.getChangedQoS().forEach(entry -> sliceQoS.put(entry.getSliceId(), entry.getPir()));
+        delta.getChangedSliceIds().forEach(entry -> assignments.put(
+                DeviceId.deviceId(entry.getDeviceId()), entry.getPortNumber(), entry.getSliceId()));
+        delta.getChangedAttacks().forEach(entry -> attacks.put(DeviceId.deviceId(entry.getDeviceId()),
+                entry.getSrcAddress().toInt(), entry.getDstAddress().toInt(),
+                entry.getSrcAddressRewritten().toInt(), entry.getDstAddressRewritten().toInt()));
+        delta.getStaleQoS().forEach(sliceQoS::remove);
+        delta.getStaleSliceIds().forEach(entry -> assignments.remove(
+                DeviceId.deviceId(entry.getDeviceId()), entry.getPortNumber()));
+        delta.getStaleAttacks().forEach(entry -> attacks.remove(DeviceId.deviceId(entry.getDeviceId()),
+                entry.getSrcAddress().toInt(), entry.getDstAddress().toInt()));
+    }
+
+    /**
+     * Returns the current configuration as a profile, like the component does
+     * before activating another one.
+     */
+    private ConfigProfile current() {
+        List<CheckerSliceIdEntry> sliceIdEntries = new ArrayList<>();
+        assignments.forEach((deviceId, portNumber, sliceId) ->
+                sliceIdEntries.add(new CheckerSliceIdEntry(deviceId.toString(), portNumber, sliceId)));
+        List<SliceQoSEntry> sliceQoSEntries = new ArrayList<>();
+        sliceQoS.forEach((sliceId, pir) -> sliceQoSEntries.add(new SliceQoSEntry(sliceId, pir)));
+        List<ExfiltrationAttackEntry> attackEntries = new ArrayList<>();
+        attacks.forEach((deviceId, src, dst, srcRewritten, dstRewritten) ->
+                attackEntries.add(new ExfiltrationAttackEntry(deviceId.toString(), Ip4Address.valueOf(src),
+                        Ip4Address.valueOf(dst), Ip4Address.valueOf(srcRewritten), Ip4Address.valueOf(dstRewritten))));
+        return profile(sliceIdEntries, sliceQoSEntries, attackEntries);
+    }
+
+    private static List<String> strings(List<?> entries) {
+        return entries.stream().map(Object::toString).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> entries(ConfigProfile profile) {
+        List<Object> entries = new ArrayList<>(profile.getSliceIdEntries());
+        entries.addAll(profile.getSliceQoSEntries());
+        entries.addAll(profile.getAttackEntries());
+        return strings(entries);
+    }
+
+    @Test
+    public void sameProfileIsEmpty() {
+        assertTrue(ProfileDelta.compute(current(), sliceQoS, assignments, attacks).isEmpty());
+    }
+
+    @Test
+    public void onlyChangedEntriesAreMade() {
+        ProfileDelta delta = ProfileDelta.compute(profile(
+                Arrays.asList(sliceId(S1, 1, 10), sliceId(S1, 2, 30), sliceId(S2, 1, 10), sliceId(S2, 2, 30)),
+                Arrays.asList(new SliceQoSEntry(10, 1000), new SliceQoSEntry(20, 2500), new SliceQoSEntry(30, 3000)),
+                Arrays.asList(attack(S1, "10.0.0.1", "10.0.0.2", "10.0.1.1"),
+                        attack(S2, "10.0.0.3", "10.0.0.4", "10.0.1.4"),
+                        attack(S2, "10.0.0.5", "10.0.0.6", "10.0.1.5"))),
+                sliceQoS, assignments, attacks);
+
+        assertEquals(strings(Arrays.asList(new SliceQoSEntry(20, 2500), new SliceQoSEntry(30, 3000))),
+                strings(delta.getChangedQoS()));
+        assertEquals(strings(Arrays.asList(sliceId(S1, 2, 30), sliceId(S2, 2, 30))),
+                strings(delta.getChangedSliceIds()));
+        assertEquals(strings(Arrays.asList(attack(S2, "10.0.0.3", "10.0.0.4", "10.0.1.4"),
+                attack(S2, "10.0.0.5", "10.0.0.6", "10.0.1.5"))),
+                strings(delta.getChangedAttacks()));
+        assertTrue(delta.getStaleQoS().isEmpty());
+        assertTrue(delta.getStaleSliceIds().isEmpty());
+        assertTrue(delta.getStaleAttacks().isEmpty());
+    }
+
+    @Test
+    public void entriesMissingFromProfileAreStale() {
+        ProfileDelta delta = ProfileDelta.compute(profile(
+                Collections.singletonList(sliceId(S1, 1, 10)),
+                Collections.singletonList(new SliceQoSEntry(10, 1000)),
+                Collections.singletonList(attack(S1, "10.0.0.1", "10.0.0.2", "10.0.1.1"))),
+                sliceQoS, assignments, attacks);
+
+        assertTrue(delta.getChangedQoS().isEmpty());
+        assertTrue(delta.getChangedSliceIds().isEmpty());
+        assertTrue(delta.getChangedAttacks().isEmpty());
+        assertEquals(Collections.singletonList(20), delta.getStaleQoS());
+        assertEquals(strings(Arrays.asList(sliceId(S1, 2, 20), sliceId(S2, 1, 10))),
+                strings(delta.getStaleSliceIds()));
+        assertEquals(strings(Collections.singletonList(attack(S2, "10.0.0.3", "10.0.0.4", "10.0.1.3"))),
+                strings(delta.getStaleAttacks()));
+
+        apply(delta);
+        assertEquals(1, sliceQoS.size());
+        assertEquals(1, assignments.size());
+        assertEquals(1, attacks.size());
+    }
+
+    @Test
+    public void rollbackRestoresPreviousConfiguration() {
+        ConfigProfile previous = current();
+        List<String> previousEntries = entries(previous);
+
+        apply(ProfileDelta.compute(profile(
+                Arrays.asList(sliceId(S1, 1, 30), sliceId(S2, 3, 30)),
+                Arrays.asList(new SliceQoSEntry(10, 500), new SliceQoSEntry(30, 3000)),
+                Collections.singletonList(attack(S1, "10.0.0.1", "10.0.0.2", "10.0.2.1"))),
+                sliceQoS, assignments, attacks));
+        assertFalse(ProfileDelta.compute(previous, sliceQoS, assignments, attacks).isEmpty());
+
+        // Rolling back is applying the delta back to the previous profile
+        ProfileDelta back = ProfileDelta.compute(previous, sliceQoS, assignments, attacks);
+        assertEquals(Collections.singletonList(30), back.getStaleQoS());
+        assertEquals(strings(Collections.singletonList(sliceId(S2, 3, 30))), strings(back.getStaleSliceIds()));
+        apply(back);
+
+        assertEquals(previousEntries, entries(current()));
+        assertTrue(ProfileDelta.compute(previous, sliceQoS, assignments, attacks).isEmpty());
+    }
+}
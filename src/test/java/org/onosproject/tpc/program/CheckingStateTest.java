@@ -0,0 +1,127 @@
+package org.onosproject.tpc.program;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.tpc.common.CheckType;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CheckingState}.
+ */
+public class CheckingStateTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+
+    private CheckingState state;
+
+    @Before
+    public void setUp() {
+        state = new CheckingState();
+    }
+
+    @Test
+    public void enableOnlyChangesRequestedDevicesAndTypes() {
+        List<CheckingState.Delta> deltas = state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true);
+        assertEquals(1, deltas.size());
+        assertEquals(S1, deltas.get(0).getDeviceId());
+        assertTrue(deltas.get(0).isPunt());
+        assertEquals(EnumSet.of(CheckType.ISO), deltas.get(0).getEnabled());
+        assertTrue(deltas.get(0).getDisabled().isEmpty());
+
+        // Only the new device and the new type change, the punt ACL is not reinstalled on S1
+        deltas = state.update(ImmutableSet.of(S1, S2), EnumSet.allOf(CheckType.class), true);
+        assertEquals(2, deltas.size());
+        for (CheckingState.Delta delta: deltas) {
+            if (delta.getDeviceId().equals(S1)) {
+                assertFalse(delta.isPunt());
+                assertEquals(EnumSet.of(CheckType.QOS), delta.getEnabled());
+            } else {
+                assertTrue(delta.isPunt());
+                assertEquals(EnumSet.allOf(CheckType.class), delta.getEnabled());
+            }
+        }
+        assertEquals(EnumSet.allOf(CheckType.class), state.snapshot().get(S1));
+    }
+
+    @Test
+    public void reenableIsIdempotent() {
+        state.update(ImmutableSet.of(S1), EnumSet.allOf(CheckType.class), true);
+        assertTrue(state.update(ImmutableSet.of(S1), EnumSet.allOf(CheckType.class), true).isEmpty());
+        assertTrue(state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.QOS), true).isEmpty());
+    }
+
+    @Test
+    public void disableRemovesOnlyEnabledTypes() {
+        state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true);
+        assertTrue(state.update(ImmutableSet.of(S2), EnumSet.allOf(CheckType.class), false).isEmpty());
+
+        List<CheckingState.Delta> deltas = state.update(ImmutableSet.of(S1), EnumSet.allOf(CheckType.class), false);
+        assertEquals(1, deltas.size());
+        assertEquals(EnumSet.of(CheckType.ISO), deltas.get(0).getDisabled());
+        assertTrue(deltas.get(0).getEnabled().isEmpty());
+        assertTrue(state.snapshot().isEmpty());
+        assertTrue(state.devices().isEmpty());
+
+        // The punt ACL stays installed until the device is forgotten
+        assertFalse(state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true).get(0).isPunt());
+        state.remove(S1);
+        assertTrue(state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true).get(0).isPunt());
+    }
+
+    @Test
+    public void failedEnableIsRolledBackAndCanBeRetried() {
+        CheckingState.Delta delta = state.update(ImmutableSet.of(S1), EnumSet.allOf(CheckType.class), true).get(0);
+        assertTrue(state.rollbackPunt(S1, delta.getGeneration()));
+        assertTrue(state.rollback(S1, CheckType.ISO, true, delta.getGeneration()));
+        assertTrue(state.rollback(S1, CheckType.QOS, true, delta.getGeneration()));
+        assertTrue(state.snapshot().isEmpty());
+
+        // Re-enabling reprograms both the punt ACL and the checks
+        List<CheckingState.Delta> deltas = state.update(ImmutableSet.of(S1), EnumSet.allOf(CheckType.class), true);
+        assertEquals(1, deltas.size());
+        assertTrue(deltas.get(0).isPunt());
+        assertEquals(EnumSet.allOf(CheckType.class), deltas.get(0).getEnabled());
+    }
+
+    @Test
+    public void failedDisableIsRolledBack() {
+        state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true);
+        CheckingState.Delta delta = state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), false).get(0);
+        assertTrue(state.rollback(S1, CheckType.ISO, false, delta.getGeneration()));
+        assertEquals(EnumSet.of(CheckType.ISO), state.snapshot().get(S1));
+        assertEquals(1, state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), false).size());
+    }
+
+    @Test
+    public void rollbackSkipsEntriesChangedSince() {
+        CheckingState.Delta enable = state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true).get(0);
+        CheckingState.Delta disable = state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), false).get(0);
+        state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true);
+
+        // The failures of superseded changes leave the latest state alone
+        assertFalse(state.rollback(S1, CheckType.ISO, true, enable.getGeneration()));
+        assertFalse(state.rollback(S1, CheckType.ISO, false, disable.getGeneration()));
+        assertEquals(EnumSet.of(CheckType.ISO), state.snapshot().get(S1));
+        // The punt ACL was not requested again, so its failure still applies
+        assertTrue(state.rollbackPunt(S1, enable.getGeneration()));
+        assertFalse(state.rollbackPunt(S1, enable.getGeneration()));
+
+        state.remove(S1);
+        assertFalse(state.rollback(S1, CheckType.ISO, true, enable.getGeneration()));
+    }
+
+    @Test
+    public void markPuntedStampsOnlyNewDevices() {
+        assertTrue(state.markPunted(S1).isPresent());
+        assertFalse(state.markPunted(S1).isPresent());
+        assertFalse(state.update(ImmutableSet.of(S1), EnumSet.of(CheckType.ISO), true).get(0).isPunt());
+    }
+}
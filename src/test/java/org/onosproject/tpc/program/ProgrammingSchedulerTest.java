@@ -0,0 +1,219 @@
+package org.onosproject.tpc.program;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ProgrammingScheduler}.
+ */
+public class ProgrammingSchedulerTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final long WAIT = 2000;
+
+    private ScheduledExecutorService executor;
+    private ProgrammingScheduler scheduler;
+    private final BlockingQueue<Started> started = new LinkedBlockingQueue<>();
+
+    /**
+     * Operation whose completion is driven by the test.
+     */
+    private static class Started {
+        private final String name;
+        private final ProgrammingScheduler.Completion done;
+
+        Started(String name, ProgrammingScheduler.Completion done) {
+            this.name = name;
+            this.done = done;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        scheduler = new ProgrammingScheduler(executor, 4, 500);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ProgrammingScheduler.Operation op(String name) {
+        return done -> started.add(new Started(name, done));
+    }
+
+    private Started nextStarted() throws InterruptedException {
+        Started next = started.poll(WAIT, TimeUnit.MILLISECONDS);
+        if (next == null) {
+            fail("no operation started");
+        }
+        return next;
+    }
+
+    private void assertNothingStarts() throws InterruptedException {
+        Started next = started.poll(100, TimeUnit.MILLISECONDS);
+        assertNull(next == null ? null : next.name);
+    }
+
+    private static Throwable failureOf(CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(WAIT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (CancellationException e) {
+            return e;
+        } catch (TimeoutException e) {
+            fail("future did not complete");
+        }
+        fail("future succeeded");
+        return null;
+    }
+
+    @Test
+    public void gatedWaitsForCritical() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL, op("critical"));
+        Started critical = nextStarted();
+        assertEquals("critical", critical.name);
+
+        CompletableFuture<Void> gated = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, op("gated"));
+        scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, op("bulk"));
+        assertEquals("bulk", nextStarted().name);
+        assertNothingStarts();
+
+        critical.done.succeeded();
+        Started next = nextStarted();
+        assertEquals("gated", next.name);
+        next.done.succeeded();
+        gated.get(WAIT, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void criticalFailureCancelsGatedWork() throws Exception {
+        List<String> failures = new CopyOnWriteArrayList<>();
+        scheduler.setFailureListener((deviceId, reason, cancelled) -> failures.add(reason + "/" + cancelled));
+
+        CompletableFuture<Void> critical = scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL,
+                op("critical"));
+        Started started = nextStarted();
+        CompletableFuture<Void> gated = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, op("gated"));
+
+        started.done.failed("boom");
+        assertTrue(failureOf(critical) instanceof ProgrammingException);
+        assertTrue(failureOf(gated) instanceof CancellationException);
+        assertNothingStarts();
+        assertEquals(1, failures.size());
+        assertEquals("boom/1", failures.get(0));
+        assertEquals(1, scheduler.getFailed());
+        assertEquals(1, scheduler.getCancelled());
+    }
+
+    @Test
+    public void timeoutFailsOperationAndIgnoresLateCallback() throws Exception {
+        CompletableFuture<Void> critical = scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL,
+                op("critical"));
+        Started started = nextStarted();
+        assertTrue(failureOf(critical) instanceof ProgrammingException);
+        assertEquals(1, scheduler.getTimedOut());
+
+        started.done.succeeded();
+        ProgrammingScheduler.Stats stats = scheduler.stats();
+        assertEquals(0, stats.getCompleted());
+        assertEquals(1, stats.getTimedOut());
+        assertEquals(0, stats.getState().get(S1)[1]);
+    }
+
+    @Test
+    public void keyedOperationSupersedesQueuedOne() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL, op("critical"));
+        Started critical = nextStarted();
+
+        CompletableFuture<Void> enable = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, "check",
+                op("enable"));
+        CompletableFuture<Void> disable = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, "check",
+                op("disable"));
+        assertTrue(failureOf(enable) instanceof CancellationException);
+
+        critical.done.succeeded();
+        Started next = nextStarted();
+        assertEquals("disable", next.name);
+        next.done.succeeded();
+        disable.get(WAIT, TimeUnit.MILLISECONDS);
+        assertNothingStarts();
+    }
+
+    @Test
+    public void supersedesAcrossPriorities() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL, op("critical"));
+        Started critical = nextStarted();
+
+        CompletableFuture<Void> withdraw = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, "meter",
+                op("withdraw"));
+        scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL, "meter", op("readd"));
+        assertTrue(failureOf(withdraw) instanceof CancellationException);
+        assertEquals("readd", nextStarted().name);
+        critical.done.succeeded();
+        assertNothingStarts();
+    }
+
+    @Test
+    public void sameKeyNeverRunsConcurrently() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, "rule", op("add"));
+        Started add = nextStarted();
+        scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, "rule", op("remove"));
+        scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, "other", op("other"));
+
+        assertEquals("other", nextStarted().name);
+        assertNothingStarts();
+        add.done.succeeded();
+        assertEquals("remove", nextStarted().name);
+    }
+
+    @Test
+    public void drainCancelsQueuedAndWaitsForInFlight() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.CRITICAL, op("critical"));
+        Started critical = nextStarted();
+        CompletableFuture<Void> gated = scheduler.submit(S1, ProgrammingScheduler.Priority.GATED, op("gated"));
+
+        executor.schedule(critical.done::succeeded, 100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        assertTrue(scheduler.drain(WAIT));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertTrue(failureOf(gated) instanceof CancellationException);
+        assertEquals(0, scheduler.getState().get(S1)[1]);
+    }
+
+    @Test
+    public void drainGivesUpAfterWait() throws Exception {
+        scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, op("bulk"));
+        nextStarted();
+        assertFalse(scheduler.drain(50));
+    }
+
+    @Test
+    public void throwingOperationFails() throws Exception {
+        CompletableFuture<Void> future = scheduler.submit(S1, ProgrammingScheduler.Priority.BULK, done -> {
+            throw new IllegalStateException("no device");
+        });
+        assertTrue(failureOf(future) instanceof ProgrammingException);
+    }
+}
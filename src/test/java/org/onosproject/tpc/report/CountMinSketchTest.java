@@ -0,0 +1,53 @@
+package org.onosproject.tpc.report;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CountMinSketch}.
+ */
+public class CountMinSketchTest {
+
+    @Test
+    public void singleKeyIsExact() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(i, sketch.add(42L));
+        }
+        assertEquals(10, sketch.estimate(42L));
+        assertEquals(0, sketch.estimate(43L));
+    }
+
+    @Test
+    public void neverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(3, 16);
+        long[] truth = new long[200];
+        for (int round = 0; round < 5; round++) {
+            for (int k = 0; k < truth.length; k++) {
+                for (int n = 0; n <= k % 7; n++) {
+                    sketch.add(key(k));
+                    truth[k]++;
+                }
+            }
+        }
+        for (int k = 0; k < truth.length; k++) {
+            assertTrue("key " + k, sketch.estimate(key(k)) >= truth[k]);
+        }
+    }
+
+    @Test
+    public void clearResetsCounts() {
+        CountMinSketch sketch = new CountMinSketch(2, 64);
+        sketch.add(7L);
+        sketch.add(7L);
+        sketch.clear();
+        assertEquals(0, sketch.estimate(7L));
+        assertEquals(1, sketch.add(7L));
+    }
+
+    private static long key(int k) {
+        return k * 0x9E3779B97F4A7C15L + 1;
+    }
+}
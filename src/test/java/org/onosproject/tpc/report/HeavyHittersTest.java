@@ -0,0 +1,88 @@
+package org.onosproject.tpc.report;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HeavyHitters}.
+ */
+public class HeavyHittersTest {
+
+    private static CheckerReport report(int slice) {
+        return new CheckerReport(DeviceId.deviceId("device:s1"), PortNumber.portNumber(1),
+                slice, CheckType.ISO, 0);
+    }
+
+    @Test
+    public void countsWithinCapacityAreExact() {
+        HeavyHitters hitters = new HeavyHitters(4);
+        for (int slice = 1; slice <= 4; slice++) {
+            for (int i = 0; i < slice * 10; i++) {
+                hitters.offer(slice, report(slice));
+            }
+        }
+        List<HeavyHitters.Counter> top = hitters.top();
+        assertEquals(4, top.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(4 - i, top.get(i).getSample().getSliceId());
+            assertEquals((4 - i) * 10, top.get(i).getCount());
+            assertEquals(0, top.get(i).getError());
+        }
+    }
+
+    @Test
+    public void newKeyReplacesMinimum() {
+        HeavyHitters hitters = new HeavyHitters(2);
+        for (int i = 0; i < 5; i++) {
+            hitters.offer(1, report(1));
+        }
+        hitters.offer(2, report(2));
+        hitters.offer(3, report(3));
+
+        List<HeavyHitters.Counter> top = hitters.top();
+        assertEquals(2, top.size());
+        assertEquals(1, top.get(0).getSample().getSliceId());
+        assertEquals(5, top.get(0).getCount());
+        assertEquals(3, top.get(1).getSample().getSliceId());
+        assertEquals(2, top.get(1).getCount());
+        assertEquals(1, top.get(1).getError());
+    }
+
+    @Test
+    public void heavyKeysSurviveChurn() {
+        HeavyHitters hitters = new HeavyHitters(8);
+        for (int round = 0; round < 1000; round++) {
+            hitters.offer(1, report(1));
+            hitters.offer(2, report(2));
+            hitters.offer(1000 + round, report(1000 + round));
+        }
+        List<HeavyHitters.Counter> top = hitters.top();
+        assertEquals(8, top.size());
+        assertTrue(top.get(0).getCount() >= 1000);
+        assertTrue(top.get(1).getCount() >= 1000);
+        int heavy = top.get(0).getSample().getSliceId() + top.get(1).getSample().getSliceId();
+        assertEquals(3, heavy);
+        for (HeavyHitters.Counter counter : top.subList(2, top.size())) {
+            assertTrue(counter.getCount() - counter.getError() <= 1);
+        }
+    }
+
+    @Test
+    public void clearEmptiesTable() {
+        HeavyHitters hitters = new HeavyHitters(2);
+        hitters.offer(1, report(1));
+        hitters.offer(2, report(2));
+        hitters.clear();
+        assertEquals(0, hitters.size());
+        hitters.offer(3, report(3));
+        assertEquals(1, hitters.top().get(0).getCount());
+    }
+}
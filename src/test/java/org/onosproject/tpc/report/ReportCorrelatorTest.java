@@ -0,0 +1,156 @@
+package org.onosproject.tpc.report;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.link.LinkServiceAdapter;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.mitigation.HashedTimerWheel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ReportCorrelator}.
+ */
+public class ReportCorrelatorTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+    private static final DeviceId S3 = DeviceId.deviceId("device:s3");
+    private static final DeviceId S4 = DeviceId.deviceId("device:s4");
+
+    private ScheduledExecutorService executor;
+    private HashedTimerWheel wheel;
+    private final TestLinkService linkService = new TestLinkService();
+    private final BlockingQueue<ReportCorrelator.Incident> closed = new LinkedBlockingQueue<>();
+    private ReportCorrelator correlator;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        wheel = new HashedTimerWheel(10, 64, executor);
+        wheel.start();
+        correlator = new ReportCorrelator(linkService, wheel, 50, closed::add);
+    }
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+        executor.shutdownNow();
+    }
+
+    private static CheckerReport report(DeviceId deviceId, int port, int slice, long timestamp) {
+        return new CheckerReport(deviceId, PortNumber.portNumber(port), slice, CheckType.ISO, timestamp);
+    }
+
+    private ReportCorrelator.Incident nextIncident() throws InterruptedException {
+        ReportCorrelator.Incident incident = closed.poll(2, TimeUnit.SECONDS);
+        assertNotNull(incident);
+        return incident;
+    }
+
+    @Test
+    public void joinsReportsAlongPathAndLocalizesFirstHop() throws Exception {
+        linkService.link(S1, 2, S2, 1);
+        linkService.link(S2, 2, S3, 1);
+
+        // Downstream reports may arrive first
+        assertTrue(correlator.offer(report(S2, 2, 7, 20)));
+        assertFalse(correlator.offer(report(S1, 2, 7, 30)));
+        assertFalse(correlator.offer(report(S3, 3, 7, 10)));
+        assertEquals(1, correlator.getOpen());
+
+        ReportCorrelator.Incident incident = nextIncident();
+        assertEquals(3, incident.getReports().size());
+        assertEquals(S1, incident.getFirstHop().getDeviceId());
+        ReportCorrelator.Stats stats = correlator.stats();
+        assertEquals(3, stats.getOffered());
+        assertEquals(2, stats.getMerged());
+        assertEquals(1, stats.getIncidents());
+        assertEquals(0, stats.getOpen());
+    }
+
+    @Test
+    public void separatesUnrelatedPathsOfSameSlice() throws Exception {
+        linkService.link(S1, 2, S2, 1);
+
+        assertTrue(correlator.offer(report(S1, 2, 7, 0)));
+        assertTrue(correlator.offer(report(S3, 2, 7, 0)));
+        assertFalse(correlator.offer(report(S2, 3, 7, 0)));
+        assertTrue(correlator.offer(report(S4, 1, 7, 0)));
+        assertEquals(3, correlator.getOpen());
+        assertEquals(1, correlator.getMerged());
+
+        Set<DeviceId> firstHops = new HashSet<>();
+        int reports = 0;
+        for (int i = 0; i < 3; i++) {
+            ReportCorrelator.Incident incident = nextIncident();
+            firstHops.add(incident.getFirstHop().getDeviceId());
+            reports += incident.getReports().size();
+        }
+        assertEquals(ImmutableSet.of(S1, S3, S4), firstHops);
+        assertEquals(4, reports);
+    }
+
+    @Test
+    public void separatesSlicesAndCheckTypes() {
+        assertTrue(correlator.offer(report(S1, 2, 7, 0)));
+        assertFalse(correlator.offer(report(S1, 2, 7, 1)));
+        assertTrue(correlator.offer(report(S1, 2, 8, 0)));
+        assertTrue(correlator.offer(new CheckerReport(S1, PortNumber.portNumber(2), 7, CheckType.QOS, 0)));
+        assertEquals(3, correlator.getOpen());
+    }
+
+    @Test
+    public void clearDropsOpenIncidents() throws Exception {
+        correlator.offer(report(S1, 2, 7, 0));
+        correlator.clear();
+        assertEquals(0, correlator.getOpen());
+        Thread.sleep(150);
+        assertTrue(closed.isEmpty());
+        assertTrue(correlator.offer(report(S1, 2, 7, 0)));
+    }
+
+    private static class TestLinkService extends LinkServiceAdapter {
+        private static final ProviderId PID = new ProviderId("of", "test");
+
+        private final Map<ConnectPoint, Set<Link>> egress = new HashMap<>();
+
+        void link(DeviceId src, int srcPort, DeviceId dst, int dstPort) {
+            ConnectPoint srcPoint = new ConnectPoint(src, PortNumber.portNumber(srcPort));
+            Link link = DefaultLink.builder()
+                    .providerId(PID)
+                    .src(srcPoint)
+                    .dst(new ConnectPoint(dst, PortNumber.portNumber(dstPort)))
+                    .type(Link.Type.DIRECT)
+                    .build();
+            egress.computeIfAbsent(srcPoint, k -> new HashSet<>()).add(link);
+        }
+
+        @Override
+        public Set<Link> getEgressLinks(ConnectPoint connectPoint) {
+            return egress.getOrDefault(connectPoint, Collections.emptySet());
+        }
+    }
+}
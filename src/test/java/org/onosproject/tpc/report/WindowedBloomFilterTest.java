@@ -0,0 +1,47 @@
+package org.onosproject.tpc.report;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WindowedBloomFilter}.
+ */
+public class WindowedBloomFilterTest {
+
+    @Test
+    public void firstOccurrenceIsNew() {
+        WindowedBloomFilter filter = new WindowedBloomFilter(1 << 12, 3);
+        assertFalse(filter.mightContainOrAdd(1L));
+        assertTrue(filter.mightContainOrAdd(1L));
+        assertFalse(filter.mightContainOrAdd(2L));
+    }
+
+    @Test
+    public void persistentKeyIsNewOncePerWindow() {
+        WindowedBloomFilter filter = new WindowedBloomFilter(1 << 12, 3);
+        for (int window = 0; window < 5; window++) {
+            assertFalse("window " + window, filter.mightContainOrAdd(99L));
+            for (int i = 0; i < 10; i++) {
+                assertTrue(filter.mightContainOrAdd(99L));
+            }
+            filter.rotate();
+        }
+    }
+
+    @Test
+    public void falsePositiveRateIsBounded() {
+        WindowedBloomFilter filter = new WindowedBloomFilter(1 << 14, 4);
+        for (long k = 0; k < 1000; k++) {
+            filter.mightContainOrAdd(k * 0x9E3779B97F4A7C15L);
+        }
+        int falsePositives = 0;
+        for (long k = 1000; k < 2000; k++) {
+            if (filter.mightContainOrAdd(k * 0x9E3779B97F4A7C15L)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives " + falsePositives, falsePositives < 50);
+    }
+}
@@ -0,0 +1,113 @@
+package org.onosproject.tpc.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link AttackEntryStore}.
+ */
+public class AttackEntryStoreTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+
+    private AttackEntryStore store;
+
+    @Before
+    public void setUp() {
+        store = new AttackEntryStore(new DeviceIndex(), 1);
+    }
+
+    private Map<Long, Long> entriesOf(DeviceId deviceId) {
+        Map<Long, Long> entries = new HashMap<>();
+        store.forEach((device, src, dst, srcRewritten, dstRewritten) -> {
+            if (device.equals(deviceId)) {
+                entries.put(AttackEntryStore.pack(src, dst), AttackEntryStore.pack(srcRewritten, dstRewritten));
+            }
+        });
+        return entries;
+    }
+
+    @Test
+    public void putAndGet() {
+        assertTrue(store.put(S1, 1, 2, 3, 4));
+        assertEquals(OptionalLong.of(AttackEntryStore.pack(3, 4)), store.getRewrite(S1, 1, 2));
+        assertFalse(store.getRewrite(S1, 2, 1).isPresent());
+        assertFalse(store.getRewrite(S2, 1, 2).isPresent());
+        assertEquals(1, store.size());
+        assertEquals(1, store.sizeOf(S1));
+        assertEquals(0, store.sizeOf(S2));
+    }
+
+    @Test
+    public void zeroRewriteIsAnEntry() {
+        assertTrue(store.put(S1, 0, 0, 0, 0));
+        assertEquals(OptionalLong.of(0L), store.getRewrite(S1, 0, 0));
+        assertFalse(store.put(S1, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void overwriteChangesOnlyTheRewrite() {
+        assertTrue(store.put(S1, 1, 2, 3, 4));
+        assertFalse(store.put(S1, 1, 2, 3, 4));
+        assertTrue(store.put(S1, 1, 2, -1, 5));
+        assertEquals(OptionalLong.of(AttackEntryStore.pack(-1, 5)), store.getRewrite(S1, 1, 2));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void remove() {
+        store.put(S1, 1, 2, 3, 4);
+        store.put(S2, 1, 2, 5, 6);
+        assertFalse(store.remove(S1, 2, 1));
+        assertTrue(store.remove(S1, 1, 2));
+        assertFalse(store.remove(S1, 1, 2));
+        assertFalse(store.getRewrite(S1, 1, 2).isPresent());
+        assertEquals(OptionalLong.of(AttackEntryStore.pack(5, 6)), store.getRewrite(S2, 1, 2));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void removedSlotsAreReused() {
+        for (int i = 0; i < 8; i++) {
+            store.put(S1, i, i, i, i);
+        }
+        for (int i = 0; i < 8; i += 2) {
+            store.remove(S1, i, i);
+        }
+        for (int i = 0; i < 8; i += 2) {
+            store.put(S2, i, i, i + 100, i + 100);
+        }
+        assertEquals(8, store.size());
+
+        Map<Long, Long> s1 = entriesOf(S1);
+        assertEquals(4, s1.size());
+        for (int i = 1; i < 8; i += 2) {
+            assertEquals(Long.valueOf(AttackEntryStore.pack(i, i)), s1.get(AttackEntryStore.pack(i, i)));
+        }
+        Map<Long, Long> s2 = entriesOf(S2);
+        assertEquals(4, s2.size());
+        for (int i = 0; i < 8; i += 2) {
+            assertEquals(Long.valueOf(AttackEntryStore.pack(i + 100, i + 100)), s2.get(AttackEntryStore.pack(i, i)));
+        }
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            store.put(S1, i, -i, i + 1, i + 2);
+        }
+        assertEquals(1000, store.sizeOf(S1));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(OptionalLong.of(AttackEntryStore.pack(i + 1, i + 2)), store.getRewrite(S1, i, -i));
+        }
+    }
+}
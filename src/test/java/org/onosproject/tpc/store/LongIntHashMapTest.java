@@ -0,0 +1,167 @@
+package org.onosproject.tpc.store;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LongIntHashMap}.
+ */
+public class LongIntHashMapTest {
+    // A map for up to 8 entries has 16 slots
+    private static final int SLOTS = 16;
+
+    /**
+     * Returns the home slot of a key in a 16-slot table, mirroring the
+     * map's Fibonacci hashing.
+     */
+    private static int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 60);
+    }
+
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (home(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void putGetOverwrite() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        assertEquals(LongIntHashMap.NO_VALUE, map.put(1L, 10));
+        assertEquals(10, map.put(1L, 11));
+        assertEquals(11, map.get(1L));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(2L));
+        assertTrue(map.containsKey(1L));
+        assertFalse(map.containsKey(2L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removeShiftsBackCollidingKeys() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        List<Long> keys = keysWithHome(3, 4);
+        for (int i = 0; i < keys.size(); i++) {
+            map.put(keys.get(i), i);
+        }
+
+        // Removing the head of the cluster must keep the rest reachable
+        assertEquals(0, map.remove(keys.get(0)));
+        for (int i = 1; i < keys.size(); i++) {
+            assertEquals(i, map.get(keys.get(i)));
+        }
+        assertEquals(2, map.remove(keys.get(2)));
+        assertEquals(1, map.get(keys.get(1)));
+        assertEquals(3, map.get(keys.get(3)));
+        assertEquals(LongIntHashMap.NO_VALUE, map.remove(keys.get(2)));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void removeDoesNotMoveKeysAboveTheirHome() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        long a = keysWithHome(3, 1).get(0);
+        long b = keysWithHome(4, 1).get(0);
+        long c = keysWithHome(3, 2).get(1);
+        // a at 3, b at 4, c probes to 5
+        map.put(a, 1);
+        map.put(b, 2);
+        map.put(c, 3);
+
+        map.remove(a);
+        // b is home and must stay, c must move back into the hole at 3
+        assertEquals(2, map.get(b));
+        assertEquals(3, map.get(c));
+        map.remove(b);
+        assertEquals(3, map.get(c));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void clusterWrapsAroundTheEnd() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        List<Long> last = keysWithHome(SLOTS - 1, 3);
+        long first = keysWithHome(0, 1).get(0);
+        // last[0] at 15, last[1] wraps to 0, last[2] to 1, first probes to 2
+        for (int i = 0; i < last.size(); i++) {
+            map.put(last.get(i), i);
+        }
+        map.put(first, 100);
+
+        assertEquals(0, map.remove(last.get(0)));
+        assertEquals(1, map.get(last.get(1)));
+        assertEquals(2, map.get(last.get(2)));
+        assertEquals(100, map.get(first));
+
+        assertEquals(1, map.remove(last.get(1)));
+        assertEquals(2, map.get(last.get(2)));
+        assertEquals(100, map.get(first));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31L, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 31L));
+        }
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int op = 0; op < 100000; op++) {
+            // Small key space so that clusters and deletes are frequent
+            long key = random.nextInt(64);
+            if (random.nextBoolean()) {
+                int value = random.nextInt(1000);
+                Integer previous = reference.put(key, value);
+                assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.put(key, value));
+            } else {
+                Integer previous = reference.remove(key);
+                assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.remove(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = 0; key < 64; key++) {
+            Integer value = reference.get(key);
+            assertEquals(value == null ? LongIntHashMap.NO_VALUE : value, map.get(key));
+        }
+        int[] visited = {0};
+        map.forEach((key, value) -> {
+            assertEquals((int) reference.get(key), value);
+            visited[0]++;
+        });
+        assertEquals(reference.size(), visited[0]);
+    }
+
+    @Test
+    public void clearEmptiesMap() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        map.put(1L, 1);
+        map.put(2L, 2);
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(1L));
+        map.put(1L, 3);
+        assertEquals(3, map.get(1L));
+    }
+}
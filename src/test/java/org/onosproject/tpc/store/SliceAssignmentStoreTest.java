@@ -0,0 +1,69 @@
+package org.onosproject.tpc.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SliceAssignmentStore}.
+ */
+public class SliceAssignmentStoreTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+
+    private SliceAssignmentStore store;
+
+    @Before
+    public void setUp() {
+        store = new SliceAssignmentStore(new DeviceIndex(), 16);
+    }
+
+    private static PortNumber port(long port) {
+        return PortNumber.portNumber(port);
+    }
+
+    @Test
+    public void putGetRemove() {
+        assertEquals(-1, store.put(S1, port(1), 10));
+        assertEquals(10, store.put(S1, port(1), 20));
+        assertEquals(20, store.get(S1, port(1)));
+        assertEquals(-1, store.get(S2, port(1)));
+        assertEquals(20, store.remove(S1, port(1)));
+        assertEquals(-1, store.remove(S1, port(1)));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void sliceUsageFollowsPorts() {
+        store.put(S1, port(1), 10);
+        store.put(S1, port(2), 10);
+        store.put(S2, port(1), 20);
+        assertTrue(store.isSliceUsedOn(S1, 10));
+        assertFalse(store.isSliceUsedOn(S1, 20));
+        assertTrue(store.isSliceUsedOn(S2, 20));
+
+        store.remove(S1, port(1));
+        assertTrue(store.isSliceUsedOn(S1, 10));
+        store.put(S1, port(2), 20);
+        assertFalse(store.isSliceUsedOn(S1, 10));
+        assertTrue(store.isSliceUsedOn(S1, 20));
+
+        // Re-putting the same slice must not count the port twice
+        store.put(S1, port(2), 20);
+        store.remove(S1, port(2));
+        assertFalse(store.isSliceUsedOn(S1, 20));
+    }
+
+    @Test
+    public void clearForgetsUsage() {
+        store.put(S1, port(1), 10);
+        store.clear();
+        assertFalse(store.isSliceUsedOn(S1, 10));
+        assertEquals(0, store.size());
+    }
+}
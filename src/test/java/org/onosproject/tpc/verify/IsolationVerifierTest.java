@@ -0,0 +1,243 @@
+package org.onosproject.tpc.verify;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DefaultLink;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.link.LinkEvent;
+import org.onosproject.net.link.LinkListener;
+import org.onosproject.net.link.LinkServiceAdapter;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.tpc.common.CheckType;
+import org.onosproject.tpc.common.CheckerReport;
+import org.onosproject.tpc.common.CheckerSliceIdEntry;
+import org.onosproject.tpc.store.DeviceIndex;
+import org.onosproject.tpc.store.SliceAssignmentStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link IsolationVerifier}.
+ */
+public class IsolationVerifierTest {
+    private static final DeviceId S1 = DeviceId.deviceId("device:s1");
+    private static final DeviceId S2 = DeviceId.deviceId("device:s2");
+    private static final DeviceId S3 = DeviceId.deviceId("device:s3");
+    private static final DeviceId S4 = DeviceId.deviceId("device:s4");
+
+    private TestLinkService linkService;
+    private SliceAssignmentStore store;
+    private IsolationVerifier verifier;
+
+    @Before
+    public void setUp() {
+        linkService = new TestLinkService();
+        store = new SliceAssignmentStore(new DeviceIndex(), 16);
+        verifier = new IsolationVerifier(linkService, store);
+    }
+
+    @After
+    public void tearDown() {
+        verifier.deactivate();
+    }
+
+    private static CheckerSliceIdEntry entry(DeviceId deviceId, int port, int slice) {
+        return new CheckerSliceIdEntry(deviceId.toString(), PortNumber.portNumber(port), slice);
+    }
+
+    private void assign(DeviceId deviceId, int port, int slice) {
+        int previous = store.put(deviceId, PortNumber.portNumber(port), slice);
+        verifier.assign(deviceId, PortNumber.portNumber(port), previous, slice);
+    }
+
+    private static Set<Finding.Type> typesOf(List<Finding> findings) {
+        Set<Finding.Type> types = new HashSet<>();
+        findings.forEach(finding -> types.add(finding.getType()));
+        return types;
+    }
+
+    @Test
+    public void conflictWithinRequestReportsEveryEntryOnThePort() {
+        verifier.activate();
+        CheckerSliceIdEntry first = entry(S1, 1, 1);
+        CheckerSliceIdEntry second = entry(S1, 1, 2);
+        CheckerSliceIdEntry other = entry(S1, 2, 1);
+
+        List<Finding> findings = verifier.check(Arrays.asList(first, second, other));
+        assertEquals(2, findings.size());
+        List<CheckerSliceIdEntry> blocked = new ArrayList<>();
+        for (Finding finding: findings) {
+            assertEquals(Finding.Type.CONFLICT, finding.getType());
+            assertTrue(finding.isBlocking());
+            blocked.add(finding.getEntry());
+        }
+        assertTrue(blocked.contains(first));
+        assertTrue(blocked.contains(second));
+    }
+
+    @Test
+    public void conflictWithCurrentAssignment() {
+        verifier.activate();
+        assign(S1, 1, 1);
+
+        assertEquals(ImmutableSet.of(Finding.Type.CONFLICT),
+                typesOf(verifier.check(Arrays.asList(entry(S1, 1, 2)))));
+        assertTrue(verifier.check(Arrays.asList(entry(S1, 1, 1))).isEmpty());
+        // A replacing profile may move the port
+        assertTrue(verifier.check(Arrays.asList(entry(S1, 1, 2)), true).isEmpty());
+    }
+
+    @Test
+    public void infrastructurePortLeaks() {
+        linkService.add(S1, 1, S2, 1);
+        verifier.activate();
+
+        List<Finding> findings = verifier.check(Arrays.asList(entry(S1, 1, 1)));
+        assertEquals(ImmutableSet.of(Finding.Type.LEAK), typesOf(findings));
+
+        assign(S1, 1, 1);
+        assertEquals(ImmutableSet.of(new ConnectPoint(S1, PortNumber.portNumber(1))), verifier.getLeakingPorts());
+    }
+
+    @Test
+    public void connectedDevicesFormOneComponent() {
+        // s1 - s2 - s3 chain, s4 apart
+        linkService.add(S1, 10, S2, 10);
+        linkService.add(S2, 11, S3, 10);
+        verifier.activate();
+
+        assertTrue(verifier.check(Arrays.asList(entry(S1, 1, 1), entry(S3, 1, 1))).isEmpty());
+        assertEquals(ImmutableSet.of(Finding.Type.PARTITIONED),
+                typesOf(verifier.check(Arrays.asList(entry(S1, 1, 1), entry(S4, 1, 1)))));
+    }
+
+    @Test
+    public void partitionCountsCurrentDevicesUnlessReplaced() {
+        verifier.activate();
+        assign(S1, 1, 1);
+
+        List<CheckerSliceIdEntry> entries = Arrays.asList(entry(S4, 1, 1));
+        assertEquals(ImmutableSet.of(Finding.Type.PARTITIONED), typesOf(verifier.check(entries)));
+        assertTrue(verifier.check(entries, true).isEmpty());
+    }
+
+    @Test
+    public void linkEventsMergeAndSplitComponents() {
+        Link s1s2 = linkService.add(S1, 10, S2, 10);
+        verifier.activate();
+        assign(S1, 1, 1);
+        assign(S3, 1, 1);
+        assertEquals(ImmutableSet.of(1), verifier.getPartitionedSlices());
+
+        Link s2s3 = linkService.add(S2, 11, S3, 10);
+        linkService.post(new LinkEvent(LinkEvent.Type.LINK_ADDED, s2s3));
+        assertTrue(verifier.getPartitionedSlices().isEmpty());
+
+        // Union-find cannot split, the verifier has to rebuild from the remaining links
+        linkService.remove(s1s2);
+        linkService.post(new LinkEvent(LinkEvent.Type.LINK_REMOVED, s1s2));
+        assertEquals(ImmutableSet.of(1), verifier.getPartitionedSlices());
+    }
+
+    @Test
+    public void reassignmentMovesSliceDevices() {
+        linkService.add(S1, 10, S2, 10);
+        verifier.activate();
+        assign(S1, 1, 1);
+        assign(S4, 1, 1);
+        assertEquals(ImmutableSet.of(1), verifier.getPartitionedSlices());
+
+        assign(S4, 1, 2);
+        assertTrue(verifier.getPartitionedSlices().isEmpty());
+        assertEquals(2, verifier.getSlices());
+        assertEquals(2, verifier.getAssignments());
+
+        int removed = store.remove(S4, PortNumber.portNumber(1));
+        verifier.unassign(S4, PortNumber.portNumber(1), removed);
+        assertEquals(1, verifier.getSlices());
+    }
+
+    @Test
+    public void classifiesAgainstStoredAssignments() {
+        verifier.activate();
+        assign(S1, 1, 1);
+        verifier.setAttacked(S1, true);
+
+        assertEquals(IsolationVerifier.Verdict.EXPECTED, verifier.classify(
+                new CheckerReport(S1, PortNumber.portNumber(1), 1, CheckType.ISO, 0)));
+        // The data plane reports a slice the store does not have on that port
+        assertEquals(IsolationVerifier.Verdict.ANOMALOUS, verifier.classify(
+                new CheckerReport(S1, PortNumber.portNumber(1), 2, CheckType.ISO, 0)));
+        IsolationVerifier.State state = verifier.state();
+        assertEquals(1, state.getExpected());
+        assertEquals(1, state.getAnomalous());
+        assertEquals(1, state.getAssignments());
+    }
+
+    private static class TestLinkService extends LinkServiceAdapter {
+        private static final ProviderId PID = new ProviderId("of", "test");
+
+        private final Set<Link> links = new HashSet<>();
+        private final List<LinkListener> listeners = new ArrayList<>();
+
+        Link add(DeviceId src, int srcPort, DeviceId dst, int dstPort) {
+            Link link = DefaultLink.builder()
+                    .providerId(PID)
+                    .src(new ConnectPoint(src, PortNumber.portNumber(srcPort)))
+                    .dst(new ConnectPoint(dst, PortNumber.portNumber(dstPort)))
+                    .type(Link.Type.DIRECT)
+                    .build();
+            links.add(link);
+            return link;
+        }
+
+        void remove(Link link) {
+            links.remove(link);
+        }
+
+        void post(LinkEvent event) {
+            listeners.forEach(listener -> listener.event(event));
+        }
+
+        @Override
+        public Iterable<Link> getLinks() {
+            return new ArrayList<>(links);
+        }
+
+        @Override
+        public Set<Link> getEgressLinks(ConnectPoint connectPoint) {
+            Set<Link> egress = new HashSet<>();
+            links.stream().filter(link -> link.src().equals(connectPoint)).forEach(egress::add);
+            return egress;
+        }
+
+        @Override
+        public Set<Link> getIngressLinks(ConnectPoint connectPoint) {
+            Set<Link> ingress = new HashSet<>();
+            links.stream().filter(link -> link.dst().equals(connectPoint)).forEach(ingress::add);
+            return ingress;
+        }
+
+        @Override
+        public void addListener(LinkListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(LinkListener listener) {
+            listeners.remove(listener);
+        }
+    }
+}